@@ -2,6 +2,7 @@ plugins {
 	application
 	id("org.openjfx.javafxplugin") version "0.0.10"
 	id("com.github.johnrengelman.shadow") version "7.0.0"
+	id("me.champeau.jmh") version "0.6.6"
 }
 
 repositories {
@@ -11,12 +12,85 @@ repositories {
 dependencies {
 	implementation("javax.vecmath", "vecmath", "1.5.2")
 	implementation("org.apache.commons", "commons-csv", "1.8")
+
+	testImplementation("org.junit.jupiter", "junit-jupiter", "5.8.2")
+}
+
+// the vector physics uses the incubating vector api, without the module the scalar physics is used
+val vectorModule = "--add-modules=jdk.incubator.vector"
+
+// only the main sources use the vector api, javac always warns about an incubating module and -nowarn is the only way to turn that off
+// the unchecked and removal warnings are still reported as notes
+tasks.compileJava {
+	options.compilerArgs.addAll(listOf(vectorModule, "-nowarn"))
 }
 
 application {
 	mainClass.set("com.weisbrja.App")
+	applicationDefaultJvmArgs = listOf(vectorModule)
+}
+
+tasks.withType<JavaExec> {
+	jvmArgs(vectorModule)
+}
+
+tasks.test {
+	useJUnitPlatform()
+	jvmArgs(vectorModule)
+}
+
+// run the engine selection without the incubator module as well, so that the fallback to the batch engine is tested
+val testWithoutVectorModule = tasks.register<Test>("testWithoutVectorModule") {
+	group = "verification"
+	description = "Runs the engine selection tests on a jvm without the vector api."
+	testClassesDirs = sourceSets["test"].output.classesDirs
+	classpath = sourceSets["test"].runtimeClasspath
+	useJUnitPlatform()
+	filter {
+		includeTestsMatching("com.weisbrja.AppContextTest")
+	}
+}
+
+tasks.check {
+	dependsOn(testWithoutVectorModule)
 }
 
 javafx {
 	modules("javafx.controls")
 }
+
+// run without a window, e.g. ./gradlew runHeadless --args="--generations 100 --population-size 10000"
+tasks.register<JavaExec>("runHeadless") {
+	group = "application"
+	description = "Runs the evolution headless without loading JavaFX."
+	classpath = sourceSets["main"].runtimeClasspath
+	mainClass.set("com.weisbrja.HeadlessApp")
+}
+
+// start a simulation worker, e.g. ./gradlew runWorker --args="7100 8"
+tasks.register<JavaExec>("runWorker") {
+	group = "application"
+	description = "Starts a worker process that simulates generations for a coordinator."
+	classpath = sourceSets["main"].runtimeClasspath
+	mainClass.set("com.weisbrja.remote.SimulationWorker")
+}
+
+// run a parameter sweep, e.g. ./gradlew runSweep --args="sweep.properties"
+tasks.register<JavaExec>("runSweep") {
+	group = "application"
+	description = "Runs every combination of a parameter sweep headless on a shared scheduler."
+	classpath = sourceSets["main"].runtimeClasspath
+	mainClass.set("com.weisbrja.SweepRunner")
+}
+
+// run with "./gradlew jmh", pass e.g. -PjmhIncludes=PopulationBenchmark to run a subset
+jmh {
+	jmhVersion.set("1.33")
+	jvmArgsAppend.add(vectorModule)
+	fork.set(1)
+	profilers.add("gc")
+	resultFormat.set("JSON")
+	resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+	if (project.hasProperty("jmhIncludes"))
+		includes.add(project.property("jmhIncludes").toString())
+}
@@ -0,0 +1,17 @@
+package com.weisbrja;
+
+import com.weisbrja.event.EventBus;
+
+// the app context of the benchmarks, with the default config and its fixed random seed
+public class BenchmarkContext {
+
+	public static final long randomSeed = SimulationConfig.getDefault().getRandomSeed();
+	public static final int simulationCycleCount = SimulationConfig.getDefault().getSimulationCycleCount();
+
+	private BenchmarkContext() {
+	}
+
+	public static AppContext newAppContext() {
+		return new AppContext(new EventBus(), SimulationConfig.getDefault());
+	}
+}
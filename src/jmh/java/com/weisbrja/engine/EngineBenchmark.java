@@ -0,0 +1,69 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.BenchmarkContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.simulation.Simulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// compares the scalar and the vector physics in creature steps per second, the vector physics needs the jvm to be started with the vector module
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class EngineBenchmark {
+
+	@Param({"scalar", "vector"})
+	private String physics;
+
+	@Param({"1000"})
+	private int populationSize;
+
+	private SimulationEngine simulationEngine;
+	private Simulator[] simulators;
+
+	// reported by jmh as a rate next to the simulations per second
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class CreatureSteps {
+
+		public long creatureSteps;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		AppContext appContext = BenchmarkContext.newAppContext();
+		switch (physics) {
+			case "scalar":
+				simulationEngine = new BatchSimulationEngine(appContext.getPhysicsParameters());
+				break;
+			case "vector":
+				if (!VectorSimulationEngine.isSupported())
+					throw new IllegalStateException("the vector module is not available");
+				simulationEngine = new VectorSimulationEngine(appContext.getPhysicsParameters(), null);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown physics: " + physics);
+		}
+
+		// the same random creatures for both physics, most of them come to rest on the ground at some point like in a real generation
+		RandomNumberGenerator randomNumberGenerator = new RandomNumberGenerator(BenchmarkContext.randomSeed);
+		simulators = new Simulator[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			simulators[i] = new Simulator(appContext);
+			simulators[i].generateRandomCreature(randomNumberGenerator);
+		}
+	}
+
+	@Benchmark
+	public Simulator[] simulate(CreatureSteps creatureSteps) {
+		long creatureStepCount = simulationEngine.getCreatureStepCount();
+		simulationEngine.simulate(simulators, 0, simulators.length, BenchmarkContext.simulationCycleCount);
+		creatureSteps.creatureSteps += simulationEngine.getCreatureStepCount() - creatureStepCount;
+		return simulators;
+	}
+}
@@ -0,0 +1,46 @@
+package com.weisbrja.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EventBusBenchmark {
+
+	@Param({"1", "4"})
+	private int listenerCount;
+
+	private EventBus eventBus;
+	private BenchmarkEvent event;
+	private UnlistenedEvent unlistenedEvent;
+
+	@Setup(Level.Trial)
+	public void setUp(Blackhole blackhole) {
+		eventBus = new EventBus();
+		for (int i = 0; i < listenerCount; i++)
+			eventBus.listenFor(BenchmarkEvent.class, blackhole::consume);
+		event = new BenchmarkEvent();
+		unlistenedEvent = new UnlistenedEvent();
+	}
+
+	@Benchmark
+	public void emit() {
+		eventBus.emit(event);
+	}
+
+	@Benchmark
+	public void emitWithoutListener() {
+		eventBus.emit(unlistenedEvent);
+	}
+
+	public static class BenchmarkEvent implements Event {
+	}
+
+	public static class UnlistenedEvent implements Event {
+	}
+}
@@ -0,0 +1,63 @@
+package com.weisbrja.population;
+
+import com.weisbrja.BenchmarkContext;
+import com.weisbrja.RandomNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParentSamplerBenchmark {
+
+	@Param({"alias", "cumulative", "rank", "tournament"})
+	private String parentSampler;
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	private int populationSize;
+
+	private ParentSampler sampler;
+	private double[] fitnesses;
+	private RandomNumberGenerator randomNumberGenerator;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		switch (parentSampler) {
+			case "alias":
+				sampler = new AliasParentSampler();
+				break;
+			case "cumulative":
+				sampler = new CumulativeParentSampler();
+				break;
+			case "rank":
+				sampler = new RankParentSampler();
+				break;
+			case "tournament":
+				sampler = new TournamentParentSampler(4);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown parent sampler: " + parentSampler);
+		}
+
+		randomNumberGenerator = new RandomNumberGenerator(BenchmarkContext.randomSeed);
+		fitnesses = new double[populationSize];
+		for (int i = 0; i < populationSize; i++)
+			fitnesses[i] = randomNumberGenerator.getRandomRange(-80d, 1000d);
+		sampler.prepare(fitnesses);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public ParentSampler prepare() {
+		sampler.prepare(fitnesses);
+		return sampler;
+	}
+
+	@Benchmark
+	public int sample() {
+		return sampler.sample(randomNumberGenerator);
+	}
+}
@@ -0,0 +1,60 @@
+package com.weisbrja.population;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.BenchmarkContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.engine.BatchSimulationEngine;
+import com.weisbrja.simulation.Genome;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PopulationBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	private int populationSize;
+
+	private Population population;
+	private RandomNumberGenerator randomNumberGenerator;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		AppContext appContext = BenchmarkContext.newAppContext();
+		population = new Population(appContext, null, null, null, new BatchSimulationEngine(appContext.getPhysicsParameters()), new ForkJoinGenerationScheduler(), new AliasParentSampler());
+		population.initialize(populationSize);
+
+		// give the creatures fitness values drawn from a fixed seed instead of simulating them
+		RandomNumberGenerator fitnessRandomNumberGenerator = new RandomNumberGenerator(BenchmarkContext.randomSeed);
+		for (int i = 0; i < populationSize; i++)
+			population.getSimulators()[i].setFitness(fitnessRandomNumberGenerator.getRandomRange(-80d, 1000d));
+
+		population.doSelection();
+		randomNumberGenerator = new RandomNumberGenerator(BenchmarkContext.randomSeed);
+	}
+
+	@Benchmark
+	public Population doSelection() {
+		population.doSelection();
+		return population;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Population doReproduction() {
+		// the parents are only replaced by doSelection, so every invocation breeds from the same generation
+		population.doReproduction();
+		return population;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Genome getRandomParentGenome() {
+		return population.getRandomParentGenome(randomNumberGenerator);
+	}
+}
@@ -0,0 +1,66 @@
+package com.weisbrja.simulation;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.BenchmarkContext;
+import com.weisbrja.RandomNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PhysicsBenchmark {
+
+	private PhysicsParameters physicsParameters;
+	private Simulator simulator;
+	private Creature creature;
+	private Circle circle;
+	private Muscle muscle;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		AppContext appContext = BenchmarkContext.newAppContext();
+		physicsParameters = appContext.getPhysicsParameters();
+
+		// generate creatures until one does not come to rest on the ground, so that every benchmark sees the same moving creature
+		RandomNumberGenerator randomNumberGenerator = new RandomNumberGenerator(BenchmarkContext.randomSeed);
+		simulator = new Simulator(appContext);
+		do {
+			simulator.generateRandomCreature(randomNumberGenerator);
+			simulator.start(BenchmarkContext.simulationCycleCount, physicsParameters);
+		} while (simulator.getGenome().getMuscleCount() == 0 || simulator.getCreature().getOnGround());
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpIteration() {
+		// start every iteration from the start positions, so that the creature does not come to rest
+		simulator.reset();
+		creature = simulator.getCreature();
+		circle = creature.getCircles().get(0);
+		muscle = creature.getMuscles().get(0);
+	}
+
+	@Benchmark
+	public Circle circleUpdate() {
+		circle.applyForceY(physicsParameters.getGravityY());
+		circle.update(physicsParameters);
+		return circle;
+	}
+
+	@Benchmark
+	public Muscle muscleUpdate() {
+		muscle.update(physicsParameters);
+		return muscle;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public double simulatorStart() {
+		simulator.reset();
+		simulator.start(BenchmarkContext.simulationCycleCount, physicsParameters);
+		return simulator.getFitness();
+	}
+}
@@ -1,10 +1,13 @@
 package com.weisbrja;
 
 import com.weisbrja.data.CSVConverterSpecies;
+import com.weisbrja.event.DispatchStatistics;
 import com.weisbrja.event.EventBus;
+import com.weisbrja.population.AliasParentSampler;
+import com.weisbrja.population.GenerationScheduler;
 import com.weisbrja.population.Population;
-import com.weisbrja.simulation.Boundary2d;
-import com.weisbrja.simulation.Boundary4d;
+import com.weisbrja.simulation.GenerationDoneEvent;
+import com.weisbrja.simulation.GraphicalSimulation;
 import com.weisbrja.view.MainView;
 import javafx.application.Application;
 import javafx.scene.Scene;
@@ -14,94 +17,63 @@ import java.io.IOException;
 
 public class App extends Application {
 
-	private static final long randomSeed = 987654351976349L;
-	private static final int threadCount = 8;
-	private static final boolean saveData = false;
-	private static final boolean stopCreaturesWhenOnGround = true;
-
-	private static final String filenameFitness = "fitness_" + randomSeed + ".csv";
-	private static final String filenameMutationRate = "mutation_rate_" + randomSeed + ".csv";
-	private static final String filenameSpecies = "species_" + randomSeed + ".csv";
-
+	private SimulationConfig config;
+	private String filenameSpecies;
+	private GenerationScheduler generationScheduler;
 	private Population population;
 
 	public static void main(String[] args) {
-		launch();
+		launch(args);
 	}
 
 	@Override
-	public void init() {
+	public void init() throws IOException {
 		// TODO: 12/13/20 Implement UI for changing simulation value ranges
 		// TODO: 2/3/21 Implement UI for changing random seed at runtime
-		EventBus eventBus = new EventBus();
-
-		RandomNumberGenerator randomNumberGenerator = new RandomNumberGenerator(randomSeed);
-
-		int simulationCycleCount = 1500;
-
-		double gravityY = 2d;
-		double groundDamping = 0.8d;
-		double airFriction = 0.8d;
-
-		Boundary4d circlePositionBoundaries = new Boundary4d(-80d, 80d, -160d, 0d);
-		Boundary2d circleRadiusBoundaries = new Boundary2d(10d, 20d);
-
-		double maxMuscleForce = 10d;
-		Boundary2d muscleStrengthBoundaries = new Boundary2d(10d, 30d);
-		Boundary2d muscleLengthPhasesBoundaries = new Boundary2d(50d, 120d);
-		Boundary2d muscleClockSpeedBoundaries = new Boundary2d(0d, 0.05d);
-
-		Boundary2d creatureMutationRateBoundaries = new Boundary2d(0.001d, 0.2d);
-		Boundary2d creatureStructuralMutationRateBoundaries = new Boundary2d(0.001d, 0.1d);
-
-		AppContext.newInstance(
-				eventBus,
-
-				randomNumberGenerator,
-
-				stopCreaturesWhenOnGround,
-
-				gravityY,
-				groundDamping,
-				airFriction,
-
-				circlePositionBoundaries,
-				circleRadiusBoundaries,
+		config = SimulationConfig.load(getParameters().getRaw().toArray(new String[0]));
 
-				maxMuscleForce,
-				muscleStrengthBoundaries,
-				muscleLengthPhasesBoundaries,
-				muscleClockSpeedBoundaries,
+		String filenameFitness = "fitness_" + config.getRandomSeed() + ".csv";
+		String filenameMutationRate = "mutation_rate_" + config.getRandomSeed() + ".csv";
+		filenameSpecies = "species_" + config.getRandomSeed() + ".csv";
 
-				creatureMutationRateBoundaries,
-				creatureStructuralMutationRateBoundaries
-		);
+		AppContext appContext = new AppContext(new EventBus(), config);
+		AppContext.setInstance(appContext);
 
-		population = new Population(saveData, filenameFitness, filenameMutationRate, filenameSpecies, threadCount, simulationCycleCount);
+		generationScheduler = appContext.createGenerationScheduler();
+		population = new Population(appContext, filenameFitness, filenameMutationRate, filenameSpecies, appContext.createSimulationEngine(), generationScheduler, new AliasParentSampler());
 	}
 
 	@Override
 	public void start(Stage stage) {
-		MainView mainView = new MainView();
+		GraphicalSimulation graphicalSimulation = new GraphicalSimulation(AppContext.getInstance());
+		// the listener runs on the population thread before the next generation is bred, so the genomes still belong to the finished generation
+		AppContext.getInstance().getEventBus().listenFor(GenerationDoneEvent.class, event -> graphicalSimulation.show(population.getGenomes(), population.getFitnesses()));
+		MainView mainView = new MainView(graphicalSimulation);
 
 		// initialize the scene
 		Scene scene = new Scene(mainView, 1920d, 1080d);
 		scene.getStylesheets().add("bootstrap3.css");
 		stage.setScene(scene);
 		stage.setOnCloseRequest(windowEvent -> {
-			if (saveData)
+			for (DispatchStatistics dispatchStatistics : AppContext.getInstance().getEventBus().getDispatchStatistics())
+				System.err.println(dispatchStatistics);
+			if (config.getSaveData())
 				try {
 					new CSVConverterSpecies().convert(filenameSpecies, "converted_" + filenameSpecies);
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
+			// close the connections to the simulation workers
+			generationScheduler.close();
 			System.exit(0);
 		});
 
 		new Thread(() -> {
-			population.initialize(10000);
+			population.initialize(config.getPopulationSize());
+			graphicalSimulation.show(population.getGenomes(), population.getFitnesses());
 			population.startSimulating();
 		}).start();
+		graphicalSimulation.start();
 
 		stage.show();
 	}
@@ -1,8 +1,25 @@
 package com.weisbrja;
 
+import com.weisbrja.engine.ArraySimulationEngine;
+import com.weisbrja.engine.BatchSimulationEngine;
+import com.weisbrja.engine.CachingSimulationEngine;
+import com.weisbrja.engine.ObjectSimulationEngine;
+import com.weisbrja.engine.Pruning;
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.engine.SpeedPruningPolicy;
+import com.weisbrja.engine.VectorSimulationEngine;
 import com.weisbrja.event.EventBus;
-import com.weisbrja.simulation.Boundary2d;
-import com.weisbrja.simulation.Boundary4d;
+import com.weisbrja.population.ForkJoinGenerationScheduler;
+import com.weisbrja.population.GenerationScheduler;
+import com.weisbrja.remote.RemoteGenerationScheduler;
+import com.weisbrja.simulation.BestCreatureSampler;
+import com.weisbrja.simulation.CreatureSampler;
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.RandomCreatureSampler;
+import com.weisbrja.simulation.SpeciesCreatureSampler;
+
+import java.net.InetSocketAddress;
+import java.util.List;
 
 public class AppContext {
 
@@ -10,103 +27,93 @@ public class AppContext {
 
 	private final EventBus eventBus;
 
-	private final RandomNumberGenerator randomNumberGenerator;
-
-	private final boolean stopCreaturesWhenOnGround;
+	private final SimulationConfig config;
 
-	private final double gravityY;
-	private final double groundDamping;
-	private final double airFriction;
-
-	private final Boundary4d circleStartPositionBoundaries;
-	private final Boundary2d circleRadiusBoundaries;
+	private final RandomNumberGenerator randomNumberGenerator;
 
-	private final double maxMuscleForce;
-	private final Boundary2d muscleStrengthBoundaries;
-	private final Boundary2d muscleLengthPhasesBoundaries;
-	private final Boundary2d muscleClockSpeedBoundaries;
+	private final PhysicsParameters physicsParameters;
 
-	private final Boundary2d creatureMutationRateBoundaries;
-	private final Boundary2d creatureStructuralMutationRateBoundaries;
+	// null if every creature is simulated to the end
+	private final Pruning pruning;
 
-	private AppContext(EventBus eventBus, RandomNumberGenerator randomNumberGenerator, boolean stopCreaturesWhenOnGround, double gravityY, double groundDamping, double airFriction, Boundary4d circleStartPositionBoundaries, Boundary2d circleRadiusBoundaries, double maxMuscleForce, Boundary2d muscleStrengthBoundaries, Boundary2d muscleLengthPhasesBoundaries, Boundary2d muscleClockSpeedBoundaries, Boundary2d creatureMutationRateBoundaries, Boundary2d creatureStructuralMutationRateBoundaries) {
+	public AppContext(EventBus eventBus, SimulationConfig config) {
 		this.eventBus = eventBus;
-		this.randomNumberGenerator = randomNumberGenerator;
-		this.stopCreaturesWhenOnGround = stopCreaturesWhenOnGround;
-		this.gravityY = gravityY;
-		this.groundDamping = groundDamping;
-		this.airFriction = airFriction;
-		this.maxMuscleForce = maxMuscleForce;
-		this.circleStartPositionBoundaries = circleStartPositionBoundaries;
-		this.circleRadiusBoundaries = circleRadiusBoundaries;
-		this.muscleStrengthBoundaries = muscleStrengthBoundaries;
-		this.muscleLengthPhasesBoundaries = muscleLengthPhasesBoundaries;
-		this.muscleClockSpeedBoundaries = muscleClockSpeedBoundaries;
-		this.creatureMutationRateBoundaries = creatureMutationRateBoundaries;
-		this.creatureStructuralMutationRateBoundaries = creatureStructuralMutationRateBoundaries;
+		this.config = config;
+		randomNumberGenerator = new RandomNumberGenerator(config.getRandomSeed());
+		physicsParameters = new PhysicsParameters(config.getStopCreaturesWhenOnGround(), config.getGravityY(), config.getGroundDamping(), config.getAirFriction(), config.getMaxMuscleForce(), config.getCircleStartPositionBoundaries().getXMin());
+		pruning = config.getPruning() ? new Pruning(new SpeedPruningPolicy(config.getPruningMaxSpeed()), config.getPruningInterval(), config.getPruningPercentile()) : null;
 	}
 
-	public static void newInstance(EventBus eventBus, RandomNumberGenerator randomNumberGenerator, boolean stopCreaturesWhenOnGround, double gravityY, double groundDamping, double airFriction, Boundary4d circleStartPositionBoundaries, Boundary2d circleRadiusBoundaries, double maxMuscleForce, Boundary2d muscleStrengthBoundaries, Boundary2d muscleLengthPhasesBoundaries, Boundary2d muscleClockSpeedBoundaries, Boundary2d creatureMutationRateBoundaries, Boundary2d creatureStructuralMutationRateBoundaries) {
-		instance = new AppContext(eventBus, randomNumberGenerator, stopCreaturesWhenOnGround, gravityY, groundDamping, airFriction, circleStartPositionBoundaries, circleRadiusBoundaries, maxMuscleForce, muscleStrengthBoundaries, muscleLengthPhasesBoundaries, muscleClockSpeedBoundaries, creatureMutationRateBoundaries, creatureStructuralMutationRateBoundaries);
+	// the context shown by the view, the simulation itself only uses the context it was given
+	public static void setInstance(AppContext appContext) {
+		instance = appContext;
 	}
 
 	public static AppContext getInstance() {
 		return instance;
 	}
 
-	public EventBus getEventBus() {
-		return eventBus;
-	}
-
-	public RandomNumberGenerator getRandomNumberGenerator() {
-		return randomNumberGenerator;
-	}
-
-	public boolean getStopCreaturesWhenOnGround() {
-		return stopCreaturesWhenOnGround;
-	}
-
-	public double getGravityY() {
-		return gravityY;
+	public SimulationEngine createSimulationEngine() {
+		SimulationEngine simulationEngine;
+		switch (config.getEngine()) {
+			case "object":
+				simulationEngine = new ObjectSimulationEngine(physicsParameters);
+				break;
+			case "array":
+				simulationEngine = new ArraySimulationEngine(physicsParameters);
+				break;
+			case "vector":
+				if (VectorSimulationEngine.isSupported()) {
+					simulationEngine = new VectorSimulationEngine(physicsParameters, pruning);
+					break;
+				}
+				// the scalar engine computes the same fitness, so falling back only costs speed
+				System.err.println("the vector api is not available, start the jvm with --add-modules jdk.incubator.vector to use it, falling back to the batch engine");
+			default:
+				simulationEngine = new BatchSimulationEngine(physicsParameters, pruning);
+		}
+		if (config.getFitnessCacheSize() == 0)
+			return simulationEngine;
+		return new CachingSimulationEngine(simulationEngine, config.getFitnessCacheSize(), pruning);
+	}
+
+	// evaluate on the configured simulation workers, or on local threads if there are none
+	public GenerationScheduler createGenerationScheduler() {
+		List<InetSocketAddress> workerAddresses = config.getWorkerAddresses();
+		if (workerAddresses.isEmpty())
+			return new ForkJoinGenerationScheduler(config.getThreadCount());
+		return new RemoteGenerationScheduler(workerAddresses, physicsParameters, pruning, config.getWorkerBatchSize(), config.getWorkerMaxInFlightBatchCount());
+	}
+
+	// choose the watched creatures as configured, the random sampler draws from a stream of its own, so that watching does not change the evolution
+	public CreatureSampler createCreatureSampler() {
+		switch (config.getWatchSampling()) {
+			case "random":
+				return new RandomCreatureSampler(randomNumberGenerator.split(-1L));
+			case "species":
+				return new SpeciesCreatureSampler();
+			default:
+				return new BestCreatureSampler();
+		}
 	}
 
-	public double getGroundDamping() {
-		return groundDamping;
-	}
-
-	public double getAirFriction() {
-		return airFriction;
-	}
-
-	public Boundary2d getCircleRadiusBoundaries() {
-		return circleRadiusBoundaries;
-	}
-
-	public Boundary4d getCircleStartPositionBoundaries() {
-		return circleStartPositionBoundaries;
-	}
-
-	public double getMaxMuscleForce() {
-		return maxMuscleForce;
-	}
-
-	public Boundary2d getMuscleStrengthBoundaries() {
-		return muscleStrengthBoundaries;
+	public EventBus getEventBus() {
+		return eventBus;
 	}
 
-	public Boundary2d getMuscleLengthPhasesBoundaries() {
-		return muscleLengthPhasesBoundaries;
+	public SimulationConfig getConfig() {
+		return config;
 	}
 
-	public Boundary2d getMuscleClockSpeedBoundaries() {
-		return muscleClockSpeedBoundaries;
+	public RandomNumberGenerator getRandomNumberGenerator() {
+		return randomNumberGenerator;
 	}
 
-	public Boundary2d getCreatureMutationRateBoundaries() {
-		return creatureMutationRateBoundaries;
+	public PhysicsParameters getPhysicsParameters() {
+		return physicsParameters;
 	}
 
-	public Boundary2d getCreatureStructuralMutationRateBoundaries() {
-		return creatureStructuralMutationRateBoundaries;
+	public Pruning getPruning() {
+		return pruning;
 	}
 }
@@ -0,0 +1,194 @@
+package com.weisbrja;
+
+import com.weisbrja.data.CSVConverterSpecies;
+import com.weisbrja.engine.CachingSimulationEngine;
+import com.weisbrja.engine.Pruning;
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.population.AliasParentSampler;
+import com.weisbrja.population.EvaluationStatistics;
+import com.weisbrja.population.GenerationEvaluatedEvent;
+import com.weisbrja.population.GenerationFailedEvent;
+import com.weisbrja.population.GenerationScheduler;
+import com.weisbrja.population.IslandGenerationDoneEvent;
+import com.weisbrja.population.IslandModel;
+import com.weisbrja.population.IslandModelGenerationDoneEvent;
+import com.weisbrja.population.Population;
+import com.weisbrja.simulation.GenerationDoneEvent;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+// runs the evolution for a fixed number of generations without a window and without loading JavaFX
+public class HeadlessApp {
+
+	private final SimulationConfig config;
+
+	private EvaluationStatistics evaluationStatistics;
+	private long evaluationTimeSum;
+	private long lastCacheLookupCount;
+	private long lastCacheHitCount;
+	private long lastPrunedCreatureCount;
+	private long lastSavedCreatureStepCount;
+	// null unless a generation could not be evaluated
+	private Throwable failure;
+
+	public HeadlessApp(SimulationConfig config) {
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		HeadlessApp headlessApp = new HeadlessApp(SimulationConfig.load(args));
+		if (headlessApp.config.getIslandCount() > 1)
+			headlessApp.runIslands();
+		else
+			headlessApp.run();
+	}
+
+	private void run() throws InterruptedException, IOException {
+		// the population gets its own context, the global instance is only needed by the view
+		EventBus eventBus = new EventBus();
+		AppContext appContext = new AppContext(eventBus, config);
+
+		long randomSeed = config.getRandomSeed();
+		int generationCount = config.getGenerationCount();
+		int populationSize = config.getPopulationSize();
+		int threadCount = config.getThreadCount();
+		double[] reportedPercentiles = config.getReportedPercentiles();
+
+		String filenameFitness = "fitness_" + randomSeed + ".csv";
+		String filenameMutationRate = "mutation_rate_" + randomSeed + ".csv";
+		String filenameSpecies = "species_" + randomSeed + ".csv";
+
+		SimulationEngine simulationEngine = appContext.createSimulationEngine();
+		CachingSimulationEngine fitnessCache = simulationEngine instanceof CachingSimulationEngine ? (CachingSimulationEngine) simulationEngine : null;
+		Pruning pruning = appContext.getPruning();
+		GenerationScheduler generationScheduler = appContext.createGenerationScheduler();
+		Population population = new Population(appContext, filenameFitness, filenameMutationRate, filenameSpecies, simulationEngine, generationScheduler, new AliasParentSampler());
+
+		// stream one line per generation
+		CountDownLatch doneLatch = new CountDownLatch(1);
+		eventBus.listenFor(GenerationEvaluatedEvent.class, event -> {
+			evaluationStatistics = event.getEvaluationStatistics();
+			evaluationTimeSum += evaluationStatistics.getWallTime();
+		});
+		eventBus.listenFor(GenerationDoneEvent.class, event -> {
+			StringBuilder line = new StringBuilder();
+			line.append(event.getGenerationCount()).append(',').append(event.getBestDistance()).append(',').append(event.getMedianDistance());
+			for (double percentileDistance : event.getPercentileDistances())
+				line.append(',').append(percentileDistance);
+			line.append(',').append(evaluationStatistics.getWallTime() / 1000000L);
+			line.append(',').append(String.format(Locale.ROOT, "%.3f", evaluationStatistics.getMeanWorkerUtilisation()));
+			if (fitnessCache != null) {
+				// the share of the creatures of this generation whose fitness was remembered
+				long cacheLookupCount = fitnessCache.getLookupCount() - lastCacheLookupCount;
+				long cacheHitCount = fitnessCache.getHitCount() - lastCacheHitCount;
+				lastCacheLookupCount += cacheLookupCount;
+				lastCacheHitCount += cacheHitCount;
+				line.append(',').append(String.format(Locale.ROOT, "%.3f", cacheLookupCount > 0L ? (double) cacheHitCount / cacheLookupCount : 0d));
+			}
+			if (pruning != null) {
+				// the creatures of this generation that were cut off and the steps they did not need
+				long prunedCreatureCount = pruning.getPrunedCreatureCount() - lastPrunedCreatureCount;
+				long savedCreatureStepCount = pruning.getSavedCreatureStepCount() - lastSavedCreatureStepCount;
+				lastPrunedCreatureCount += prunedCreatureCount;
+				lastSavedCreatureStepCount += savedCreatureStepCount;
+				line.append(',').append(prunedCreatureCount).append(',').append(savedCreatureStepCount);
+			}
+			System.out.println(line);
+
+			if (event.getGenerationCount() >= generationCount) {
+				population.stopSimulating();
+				doneLatch.countDown();
+			}
+		});
+		eventBus.listenFor(GenerationFailedEvent.class, event -> {
+			failure = event.getFailure();
+			doneLatch.countDown();
+		});
+
+		StringBuilder header = new StringBuilder("generation,best,median");
+		for (double percentile : reportedPercentiles)
+			header.append(",p").append(Math.round(percentile * 100d));
+		header.append(",evaluation_ms,worker_utilisation");
+		if (fitnessCache != null)
+			header.append(",cache_hit_rate");
+		if (pruning != null)
+			header.append(",pruned,saved_steps");
+		System.out.println(header);
+
+		long startTime = System.nanoTime();
+		population.initialize(populationSize);
+		long initializationTime = System.nanoTime() - startTime;
+		population.startSimulating();
+		doneLatch.await();
+		long wallTime = System.nanoTime() - startTime;
+		// the connections to the simulation workers are closed as well
+		generationScheduler.close();
+		if (failure != null)
+			throw new IllegalStateException("the evolution stopped, because a generation could not be evaluated", failure);
+
+		if (config.getSaveData())
+			new CSVConverterSpecies().convert(filenameSpecies, "converted_" + filenameSpecies);
+
+		// report the timing statistics
+		double wallSeconds = wallTime / 1e9d;
+		System.err.printf(Locale.ROOT, "config: %s, generations: %d, population size: %d, threads: %d, workers: %d%n", config.getFingerprint(), generationCount, populationSize, threadCount, config.getWorkerAddresses().size());
+		System.err.printf(Locale.ROOT, "initialization: %.3f s, evaluation: %.3f s, total: %.3f s%n", initializationTime / 1e9d, evaluationTimeSum / 1e9d, wallSeconds);
+		System.err.printf(Locale.ROOT, "%.3f generations/s, %.0f creatures/s%n", generationCount / wallSeconds, (double) generationCount * populationSize / wallSeconds);
+		if (pruning != null) {
+			long savedCreatureStepCount = pruning.getSavedCreatureStepCount();
+			// the workers simulate the creatures with engines of their own, so the local engine does not know how many steps were left
+			if (config.getWorkerAddresses().isEmpty())
+				System.err.printf(Locale.ROOT, "pruned: %d creatures, saved: %d creature steps (%.1f %%)%n", pruning.getPrunedCreatureCount(), savedCreatureStepCount, 100d * savedCreatureStepCount / (savedCreatureStepCount + simulationEngine.getCreatureStepCount()));
+			else
+				System.err.printf(Locale.ROOT, "pruned: %d creatures, saved: %d creature steps%n", pruning.getPrunedCreatureCount(), savedCreatureStepCount);
+		}
+	}
+
+	private void runIslands() throws InterruptedException, IOException {
+		EventBus eventBus = new EventBus();
+		int generationCount = config.getGenerationCount();
+		int populationSize = config.getPopulationSize();
+		IslandModel islandModel = new IslandModel(eventBus, config);
+
+		// stream one line per generation and island and one line over all islands, whose median is unknown
+		CountDownLatch doneLatch = new CountDownLatch(1);
+		eventBus.listenFor(IslandGenerationDoneEvent.class, event -> {
+			GenerationDoneEvent generationDoneEvent = event.getGenerationDoneEvent();
+			System.out.println(generationDoneEvent.getGenerationCount() + "," + event.getIsland() + "," + generationDoneEvent.getBestDistance() + "," + generationDoneEvent.getMedianDistance() + "," + generationDoneEvent.getSpecies().size());
+			if (generationDoneEvent.getGenerationCount() >= generationCount)
+				islandModel.stopSimulating(event.getIsland());
+		});
+		eventBus.listenFor(IslandModelGenerationDoneEvent.class, event -> {
+			System.out.println(event.getGenerationCount() + ",all," + event.getBestDistance() + ",," + event.getSpeciesCount());
+			if (event.getGenerationCount() >= generationCount)
+				doneLatch.countDown();
+		});
+		eventBus.listenFor(GenerationFailedEvent.class, event -> {
+			failure = event.getFailure();
+			doneLatch.countDown();
+		});
+		System.out.println("generation,island,best,median,species");
+
+		long startTime = System.nanoTime();
+		islandModel.initialize();
+		islandModel.startSimulating();
+		doneLatch.await();
+		long wallTime = System.nanoTime() - startTime;
+		// every island stopped at the last generation on its own, after a failure the other islands are stopped here
+		islandModel.stopSimulating();
+		if (failure != null)
+			throw new IllegalStateException("the evolution stopped, because a generation of an island could not be evaluated", failure);
+
+		if (config.getSaveData())
+			for (int i = 0; i < islandModel.getIslandCount(); i++)
+				new CSVConverterSpecies().convert(islandModel.getFilenameSpecies(i), "converted_" + islandModel.getFilenameSpecies(i));
+
+		// report the timing statistics
+		double wallSeconds = wallTime / 1e9d;
+		System.err.printf(Locale.ROOT, "config: %s, generations: %d, population size: %d, islands: %d, threads: %d%n", config.getFingerprint(), generationCount, populationSize, islandModel.getIslandCount(), config.getThreadCount());
+		System.err.printf(Locale.ROOT, "total: %.3f s, %.3f generations/s, %.0f creatures/s%n", wallSeconds, generationCount / wallSeconds, (double) generationCount * populationSize / wallSeconds);
+	}
+}
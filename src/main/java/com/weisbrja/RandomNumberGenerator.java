@@ -2,12 +2,58 @@ package com.weisbrja;
 
 import com.weisbrja.simulation.Boundary2d;
 
-import java.util.Random;
+// a SplitMix64 generator, every instance is meant to be used by one thread only
+public class RandomNumberGenerator {
 
-public class RandomNumberGenerator extends Random {
+	private static final long goldenGamma = 0x9E3779B97F4A7C15L;
+
+	private final long randomSeed;
+	private long state;
 
 	public RandomNumberGenerator(long randomSeed) {
-		super(randomSeed);
+		this.randomSeed = randomSeed;
+		state = randomSeed;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long mixSeed(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+
+	// return an independent generator keyed by the seed of this generator and the stream index, no matter how many numbers were drawn
+	public RandomNumberGenerator split(long streamIndex) {
+		return new RandomNumberGenerator(mixSeed(randomSeed + mix64((streamIndex + 1L) * goldenGamma)));
+	}
+
+	public long nextLong() {
+		state += goldenGamma;
+		return mix64(state);
+	}
+
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	public int nextInt(int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+
+		int randomNumber = (int) (nextLong() >>> 33);
+		int mask = bound - 1;
+		if ((bound & mask) == 0)
+			return (int) ((bound * (long) randomNumber) >> 31);
+
+		// reject the values that would make the result uneven
+		for (int u = randomNumber; u - (randomNumber = u % bound) + mask < 0; u = (int) (nextLong() >>> 33))
+			;
+		return randomNumber;
 	}
 
 	public double getRandomRange(double min, double max) {
@@ -0,0 +1,561 @@
+package com.weisbrja;
+
+import com.weisbrja.simulation.Boundary2d;
+import com.weisbrja.simulation.Boundary4d;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+// every parameter of a run, loaded from defaults, a properties file and command-line overrides, in that order
+public final class SimulationConfig {
+
+	private static final String[] keys = {
+			"seed",
+			"generations",
+			"population-size",
+			"cycles",
+			"threads",
+			"workers",
+			"worker-batch-size",
+			"worker-max-in-flight-batches",
+			"islands",
+			"migration-interval",
+			"migrants",
+			"save-data",
+			"graphical-speed",
+			"watched-creatures",
+			"watch-sampling",
+			"stop-on-ground",
+			"pipeline-reproduction",
+			"fitness-cache-size",
+			"engine",
+			"pruning",
+			"pruning-interval",
+			"pruning-percentile",
+			"pruning-max-speed",
+			"reported-percentiles",
+			"gravity-y",
+			"ground-damping",
+			"air-friction",
+			"circle-start-position-boundaries",
+			"circle-radius-boundaries",
+			"max-muscle-force",
+			"muscle-strength-boundaries",
+			"muscle-length-phases-boundaries",
+			"muscle-clock-speed-boundaries",
+			"creature-mutation-rate-boundaries",
+			"creature-structural-mutation-rate-boundaries"
+	};
+
+	// the keys that only change how fast or how visibly a run is done, or how much of it, but never the fitness of a creature
+	// the fitness cache and every engine compute bit-identical fitnesses and the pipelined reproduction breeds the same offspring
+	private static final List<String> nonResultKeys = Arrays.asList(
+			"generations",
+			"threads",
+			"workers",
+			"worker-batch-size",
+			"worker-max-in-flight-batches",
+			"save-data",
+			"graphical-speed",
+			"watched-creatures",
+			"watch-sampling",
+			"pipeline-reproduction",
+			"fitness-cache-size",
+			"engine",
+			"reported-percentiles"
+	);
+
+	private final long randomSeed;
+	private final int generationCount;
+	private final int populationSize;
+	private final int simulationCycleCount;
+	private final int threadCount;
+	private final String[] workers;
+	private final int workerBatchSize;
+	private final int workerMaxInFlightBatchCount;
+	private final int islandCount;
+	private final int migrationInterval;
+	private final int migrantCount;
+	private final boolean saveData;
+	private final double graphicalSpeed;
+	private final int watchedCreatureCount;
+	private final String watchSampling;
+	private final boolean stopCreaturesWhenOnGround;
+	private final boolean pipelineReproduction;
+	private final int fitnessCacheSize;
+	private final String engine;
+	private final boolean pruning;
+	private final int pruningInterval;
+	private final double pruningPercentile;
+	private final double pruningMaxSpeed;
+	private final double[] reportedPercentiles;
+
+	private final double gravityY;
+	private final double groundDamping;
+	private final double airFriction;
+
+	private final Boundary4d circleStartPositionBoundaries;
+	private final Boundary2d circleRadiusBoundaries;
+
+	private final double maxMuscleForce;
+	private final Boundary2d muscleStrengthBoundaries;
+	private final Boundary2d muscleLengthPhasesBoundaries;
+	private final Boundary2d muscleClockSpeedBoundaries;
+
+	private final Boundary2d creatureMutationRateBoundaries;
+	private final Boundary2d creatureStructuralMutationRateBoundaries;
+
+	// the normalized text of every parameter, equal configs have equal canonical forms
+	private final String canonicalForm;
+	// the normalized text of the parameters that change the results, the fingerprint is the hash of it
+	private final String resultForm;
+
+	private SimulationConfig(Properties properties) {
+		for (String key : properties.stringPropertyNames())
+			if (!Arrays.asList(keys).contains(key))
+				throw new IllegalArgumentException("unknown config key: " + key);
+
+		randomSeed = Long.parseLong(get(properties, "seed"));
+		generationCount = Integer.parseInt(get(properties, "generations"));
+		populationSize = Integer.parseInt(get(properties, "population-size"));
+		simulationCycleCount = Integer.parseInt(get(properties, "cycles"));
+		threadCount = Integer.parseInt(get(properties, "threads"));
+		workers = parseWorkers(get(properties, "workers"));
+		workerBatchSize = Integer.parseInt(get(properties, "worker-batch-size"));
+		workerMaxInFlightBatchCount = Integer.parseInt(get(properties, "worker-max-in-flight-batches"));
+		islandCount = Integer.parseInt(get(properties, "islands"));
+		migrationInterval = Integer.parseInt(get(properties, "migration-interval"));
+		migrantCount = Integer.parseInt(get(properties, "migrants"));
+		saveData = parseBoolean(get(properties, "save-data"));
+		graphicalSpeed = Double.parseDouble(get(properties, "graphical-speed"));
+		watchedCreatureCount = Integer.parseInt(get(properties, "watched-creatures"));
+		watchSampling = get(properties, "watch-sampling");
+		stopCreaturesWhenOnGround = parseBoolean(get(properties, "stop-on-ground"));
+		pipelineReproduction = parseBoolean(get(properties, "pipeline-reproduction"));
+		fitnessCacheSize = Integer.parseInt(get(properties, "fitness-cache-size"));
+		engine = get(properties, "engine");
+		pruning = parseBoolean(get(properties, "pruning"));
+		pruningInterval = Integer.parseInt(get(properties, "pruning-interval"));
+		pruningPercentile = Double.parseDouble(get(properties, "pruning-percentile"));
+		pruningMaxSpeed = Double.parseDouble(get(properties, "pruning-max-speed"));
+		reportedPercentiles = parseDoubles(get(properties, "reported-percentiles"), -1);
+
+		gravityY = Double.parseDouble(get(properties, "gravity-y"));
+		groundDamping = Double.parseDouble(get(properties, "ground-damping"));
+		airFriction = Double.parseDouble(get(properties, "air-friction"));
+
+		double[] circleStartPositionValues = parseDoubles(get(properties, "circle-start-position-boundaries"), 4);
+		circleStartPositionBoundaries = new Boundary4d(circleStartPositionValues[0], circleStartPositionValues[1], circleStartPositionValues[2], circleStartPositionValues[3]);
+		circleRadiusBoundaries = parseBoundary2d(get(properties, "circle-radius-boundaries"));
+
+		maxMuscleForce = Double.parseDouble(get(properties, "max-muscle-force"));
+		muscleStrengthBoundaries = parseBoundary2d(get(properties, "muscle-strength-boundaries"));
+		muscleLengthPhasesBoundaries = parseBoundary2d(get(properties, "muscle-length-phases-boundaries"));
+		muscleClockSpeedBoundaries = parseBoundary2d(get(properties, "muscle-clock-speed-boundaries"));
+
+		creatureMutationRateBoundaries = parseBoundary2d(get(properties, "creature-mutation-rate-boundaries"));
+		creatureStructuralMutationRateBoundaries = parseBoundary2d(get(properties, "creature-structural-mutation-rate-boundaries"));
+
+		if (populationSize < 1 || simulationCycleCount < 0 || threadCount < 0 || generationCount < 0)
+			throw new IllegalArgumentException("population size must be positive and the counts must not be negative");
+		if (graphicalSpeed < 0d)
+			throw new IllegalArgumentException("the graphical speed must not be negative");
+		if (watchedCreatureCount < 1)
+			throw new IllegalArgumentException("at least one creature has to be watched");
+		if (!Arrays.asList("best", "random", "species").contains(watchSampling))
+			throw new IllegalArgumentException("the watch sampling must be best, random or species: " + watchSampling);
+		if (!Arrays.asList("object", "array", "batch", "vector").contains(engine))
+			throw new IllegalArgumentException("the engine must be object, array, batch or vector: " + engine);
+		// only the batch and the vector engine stop at the pruning checkpoints
+		if (pruning && (engine.equals("object") || engine.equals("array")))
+			throw new IllegalArgumentException("pruning needs the batch or the vector engine: " + engine);
+		if (fitnessCacheSize < 0)
+			throw new IllegalArgumentException("the fitness cache size must not be negative");
+		if (pruningInterval < 1 || pruningPercentile < 0d || pruningPercentile > 1d || pruningMaxSpeed < 0d)
+			throw new IllegalArgumentException("the pruning interval must be positive, the percentile between 0 and 1 and the speed not negative");
+		for (double reportedPercentile : reportedPercentiles)
+			if (!(reportedPercentile >= 0d && reportedPercentile <= 1d))
+				throw new IllegalArgumentException("the reported percentiles must be between 0 and 1: " + reportedPercentile);
+		if (workerBatchSize < 1 || workerMaxInFlightBatchCount < 1)
+			throw new IllegalArgumentException("the worker batch size and the batches in flight must be positive");
+		if (islandCount < 1 || islandCount > populationSize || migrationInterval < 1 || migrantCount < 0)
+			throw new IllegalArgumentException("every island needs a creature, the migration interval must be positive and the migrants must not be negative");
+
+		canonicalForm = createCanonicalForm(false);
+		resultForm = createCanonicalForm(true);
+	}
+
+	public static SimulationConfig getDefault() {
+		return new SimulationConfig(getDefaultProperties());
+	}
+
+	// load the config from the arguments, "--config <file>" names a properties file, "--<key> <value>" overrides a single key
+	public static SimulationConfig load(String[] args) throws IOException {
+		Properties properties = getDefaultProperties();
+		Properties overrides = new Properties();
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--"))
+				throw new IllegalArgumentException("expected an argument starting with --: " + args[i]);
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("missing value for argument: " + args[i]);
+
+			String key = args[i].substring(2);
+			if (key.equals("config"))
+				try (Reader reader = Files.newBufferedReader(Paths.get(args[i + 1]), StandardCharsets.UTF_8)) {
+					properties.load(reader);
+				}
+			else
+				overrides.setProperty(key, args[i + 1]);
+		}
+
+		properties.putAll(overrides);
+		return new SimulationConfig(properties);
+	}
+
+	public static SimulationConfig load(Path path) throws IOException {
+		return load(new String[]{"--config", path.toString()});
+	}
+
+	// return a copy of this config with a single key changed
+	public SimulationConfig with(String key, String value) {
+		Properties properties = toProperties();
+		properties.setProperty(key, value);
+		return new SimulationConfig(properties);
+	}
+
+	private static Properties getDefaultProperties() {
+		Properties properties = new Properties();
+		properties.setProperty("seed", "987654351976349");
+		properties.setProperty("generations", "100");
+		properties.setProperty("population-size", "10000");
+		properties.setProperty("cycles", "1500");
+		properties.setProperty("threads", "0");
+		properties.setProperty("workers", "");
+		properties.setProperty("worker-batch-size", "250");
+		properties.setProperty("worker-max-in-flight-batches", "4");
+		properties.setProperty("islands", "1");
+		properties.setProperty("migration-interval", "10");
+		properties.setProperty("migrants", "5");
+		properties.setProperty("save-data", "false");
+		properties.setProperty("graphical-speed", "1");
+		properties.setProperty("watched-creatures", "1");
+		properties.setProperty("watch-sampling", "best");
+		properties.setProperty("stop-on-ground", "true");
+		properties.setProperty("pipeline-reproduction", "false");
+		properties.setProperty("fitness-cache-size", "16384");
+		properties.setProperty("engine", "batch");
+		properties.setProperty("pruning", "false");
+		properties.setProperty("pruning-interval", "100");
+		properties.setProperty("pruning-percentile", "0.5");
+		properties.setProperty("pruning-max-speed", "3");
+		properties.setProperty("reported-percentiles", "0.1, 0.9");
+		properties.setProperty("gravity-y", "2");
+		properties.setProperty("ground-damping", "0.8");
+		properties.setProperty("air-friction", "0.8");
+		properties.setProperty("circle-start-position-boundaries", "-80, 80, -160, 0");
+		properties.setProperty("circle-radius-boundaries", "10, 20");
+		properties.setProperty("max-muscle-force", "10");
+		properties.setProperty("muscle-strength-boundaries", "10, 30");
+		properties.setProperty("muscle-length-phases-boundaries", "50, 120");
+		properties.setProperty("muscle-clock-speed-boundaries", "0, 0.05");
+		properties.setProperty("creature-mutation-rate-boundaries", "0.001, 0.2");
+		properties.setProperty("creature-structural-mutation-rate-boundaries", "0.001, 0.1");
+		return properties;
+	}
+
+	private static String get(Properties properties, String key) {
+		return properties.getProperty(key).trim();
+	}
+
+	private static boolean parseBoolean(String value) {
+		if (!value.equals("true") && !value.equals("false"))
+			throw new IllegalArgumentException("expected true or false: " + value);
+		return Boolean.parseBoolean(value);
+	}
+
+	private static double[] parseDoubles(String value, int expectedCount) {
+		String[] parts = value.isEmpty() ? new String[0] : value.split(",");
+		if (expectedCount >= 0 && parts.length != expectedCount)
+			throw new IllegalArgumentException("expected " + expectedCount + " comma-separated values: " + value);
+
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			values[i] = Double.parseDouble(parts[i].trim());
+		return values;
+	}
+
+	// a comma-separated list of host:port addresses
+	private static String[] parseWorkers(String value) {
+		String[] workers = value.isEmpty() ? new String[0] : value.split(",");
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = workers[i].trim();
+			int separator = workers[i].lastIndexOf(':');
+			if (separator < 1)
+				throw new IllegalArgumentException("expected a worker address as host:port: " + workers[i]);
+			Integer.parseInt(workers[i].substring(separator + 1));
+		}
+		return workers;
+	}
+
+	private static Boundary2d parseBoundary2d(String value) {
+		double[] values = parseDoubles(value, 2);
+		return new Boundary2d(values[0], values[1]);
+	}
+
+	private static String format(Boundary2d boundaries) {
+		return boundaries.getMin() + ", " + boundaries.getMax();
+	}
+
+	private static String format(double... values) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < values.length; i++)
+			text.append(i > 0 ? ", " : "").append(values[i]);
+		return text.toString();
+	}
+
+	private String createCanonicalForm(boolean resultKeysOnly) {
+		Properties properties = toProperties();
+		StringBuilder text = new StringBuilder();
+		for (String key : keys)
+			if (!resultKeysOnly || !nonResultKeys.contains(key))
+				text.append(key).append('=').append(properties.getProperty(key)).append('\n');
+		return text.toString();
+	}
+
+	public Properties toProperties() {
+		Properties properties = new Properties();
+		properties.setProperty("seed", Long.toString(randomSeed));
+		properties.setProperty("generations", Integer.toString(generationCount));
+		properties.setProperty("population-size", Integer.toString(populationSize));
+		properties.setProperty("cycles", Integer.toString(simulationCycleCount));
+		properties.setProperty("threads", Integer.toString(threadCount));
+		properties.setProperty("workers", String.join(", ", workers));
+		properties.setProperty("worker-batch-size", Integer.toString(workerBatchSize));
+		properties.setProperty("worker-max-in-flight-batches", Integer.toString(workerMaxInFlightBatchCount));
+		properties.setProperty("islands", Integer.toString(islandCount));
+		properties.setProperty("migration-interval", Integer.toString(migrationInterval));
+		properties.setProperty("migrants", Integer.toString(migrantCount));
+		properties.setProperty("save-data", Boolean.toString(saveData));
+		properties.setProperty("graphical-speed", Double.toString(graphicalSpeed));
+		properties.setProperty("watched-creatures", Integer.toString(watchedCreatureCount));
+		properties.setProperty("watch-sampling", watchSampling);
+		properties.setProperty("stop-on-ground", Boolean.toString(stopCreaturesWhenOnGround));
+		properties.setProperty("pipeline-reproduction", Boolean.toString(pipelineReproduction));
+		properties.setProperty("fitness-cache-size", Integer.toString(fitnessCacheSize));
+		properties.setProperty("engine", engine);
+		properties.setProperty("pruning", Boolean.toString(pruning));
+		properties.setProperty("pruning-interval", Integer.toString(pruningInterval));
+		properties.setProperty("pruning-percentile", Double.toString(pruningPercentile));
+		properties.setProperty("pruning-max-speed", Double.toString(pruningMaxSpeed));
+		properties.setProperty("reported-percentiles", format(reportedPercentiles));
+		properties.setProperty("gravity-y", Double.toString(gravityY));
+		properties.setProperty("ground-damping", Double.toString(groundDamping));
+		properties.setProperty("air-friction", Double.toString(airFriction));
+		properties.setProperty("circle-start-position-boundaries", format(circleStartPositionBoundaries.getXMin(), circleStartPositionBoundaries.getXMax(), circleStartPositionBoundaries.getYMin(), circleStartPositionBoundaries.getYMax()));
+		properties.setProperty("circle-radius-boundaries", format(circleRadiusBoundaries));
+		properties.setProperty("max-muscle-force", Double.toString(maxMuscleForce));
+		properties.setProperty("muscle-strength-boundaries", format(muscleStrengthBoundaries));
+		properties.setProperty("muscle-length-phases-boundaries", format(muscleLengthPhasesBoundaries));
+		properties.setProperty("muscle-clock-speed-boundaries", format(muscleClockSpeedBoundaries));
+		properties.setProperty("creature-mutation-rate-boundaries", format(creatureMutationRateBoundaries));
+		properties.setProperty("creature-structural-mutation-rate-boundaries", format(creatureStructuralMutationRateBoundaries));
+		return properties;
+	}
+
+	// a stable hash of the parameters that change the results, so that runs can be cached and compared across processes and machines
+	public String getFingerprint() {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(resultForm.getBytes(StandardCharsets.UTF_8));
+			StringBuilder fingerprint = new StringBuilder();
+			for (int i = 0; i < 8; i++)
+				fingerprint.append(String.format("%02x", digest[i]));
+			return fingerprint.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		return object instanceof SimulationConfig && canonicalForm.equals(((SimulationConfig) object).canonicalForm);
+	}
+
+	@Override
+	public int hashCode() {
+		return canonicalForm.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return canonicalForm;
+	}
+
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+
+	public int getGenerationCount() {
+		return generationCount;
+	}
+
+	public int getPopulationSize() {
+		return populationSize;
+	}
+
+	public int getSimulationCycleCount() {
+		return simulationCycleCount;
+	}
+
+	// zero threads means one thread per available processor
+	public int getThreadCount() {
+		return threadCount == 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+	}
+
+	// the simulation workers to evaluate the generations on, none means the generations are evaluated locally
+	public List<InetSocketAddress> getWorkerAddresses() {
+		List<InetSocketAddress> workerAddresses = new ArrayList<>();
+		for (String worker : workers) {
+			int separator = worker.lastIndexOf(':');
+			workerAddresses.add(new InetSocketAddress(worker.substring(0, separator), Integer.parseInt(worker.substring(separator + 1))));
+		}
+		return workerAddresses;
+	}
+
+	public int getWorkerBatchSize() {
+		return workerBatchSize;
+	}
+
+	public int getWorkerMaxInFlightBatchCount() {
+		return workerMaxInFlightBatchCount;
+	}
+
+	public int getIslandCount() {
+		return islandCount;
+	}
+
+	// the number of generations between two migrations
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+
+	// the number of creatures every island sends to the next one per migration
+	public int getMigrantCount() {
+		return migrantCount;
+	}
+
+	public boolean getSaveData() {
+		return saveData;
+	}
+
+	// how many times faster than real time the watched creature is simulated, zero simulates it as fast as possible
+	public double getGraphicalSpeed() {
+		return graphicalSpeed;
+	}
+
+	// the number of creatures that are watched side by side
+	public int getWatchedCreatureCount() {
+		return watchedCreatureCount;
+	}
+
+	// how the watched creatures are chosen from a generation, best, random or species
+	public String getWatchSampling() {
+		return watchSampling;
+	}
+
+	public boolean getStopCreaturesWhenOnGround() {
+		return stopCreaturesWhenOnGround;
+	}
+
+	public boolean getPipelineReproduction() {
+		return pipelineReproduction;
+	}
+
+	// the number of genomes whose fitness is remembered, zero turns the cache off
+	public int getFitnessCacheSize() {
+		return fitnessCacheSize;
+	}
+
+	// which engine simulates the creatures, object, array, batch or vector, the vector engine needs the vector api of the jvm
+	public String getEngine() {
+		return engine;
+	}
+
+	// whether creatures that cannot reach a percentile of the previous generation anymore are cut off early
+	public boolean getPruning() {
+		return pruning;
+	}
+
+	// the number of cycles between two pruning checkpoints
+	public int getPruningInterval() {
+		return pruningInterval;
+	}
+
+	public double getPruningPercentile() {
+		return pruningPercentile;
+	}
+
+	// the assumed maximum distance the center of a creature moves per cycle
+	public double getPruningMaxSpeed() {
+		return pruningMaxSpeed;
+	}
+
+	public double[] getReportedPercentiles() {
+		return reportedPercentiles.clone();
+	}
+
+	public double getGravityY() {
+		return gravityY;
+	}
+
+	public double getGroundDamping() {
+		return groundDamping;
+	}
+
+	public double getAirFriction() {
+		return airFriction;
+	}
+
+	public Boundary4d getCircleStartPositionBoundaries() {
+		return circleStartPositionBoundaries;
+	}
+
+	public Boundary2d getCircleRadiusBoundaries() {
+		return circleRadiusBoundaries;
+	}
+
+	public double getMaxMuscleForce() {
+		return maxMuscleForce;
+	}
+
+	public Boundary2d getMuscleStrengthBoundaries() {
+		return muscleStrengthBoundaries;
+	}
+
+	public Boundary2d getMuscleLengthPhasesBoundaries() {
+		return muscleLengthPhasesBoundaries;
+	}
+
+	public Boundary2d getMuscleClockSpeedBoundaries() {
+		return muscleClockSpeedBoundaries;
+	}
+
+	public Boundary2d getCreatureMutationRateBoundaries() {
+		return creatureMutationRateBoundaries;
+	}
+
+	public Boundary2d getCreatureStructuralMutationRateBoundaries() {
+		return creatureStructuralMutationRateBoundaries;
+	}
+}
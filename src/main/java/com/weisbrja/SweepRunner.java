@@ -0,0 +1,169 @@
+package com.weisbrja;
+
+import com.weisbrja.data.CSVConverterSpecies;
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.population.AliasParentSampler;
+import com.weisbrja.population.FairShareGenerationScheduler;
+import com.weisbrja.population.ForkJoinGenerationScheduler;
+import com.weisbrja.population.GenerationFailedEvent;
+import com.weisbrja.population.GenerationScheduler;
+import com.weisbrja.population.Population;
+import com.weisbrja.simulation.GenerationDoneEvent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+// runs every combination of a parameter sweep in one JVM, the populations share one scheduler
+public class SweepRunner {
+
+	// keys with this prefix configure the runner, all other keys are config keys whose alternatives are separated by |
+	private static final String sweepKeyPrefix = "sweep.";
+
+	private final List<SimulationConfig> configs;
+	private final List<String> variedKeys;
+	private final Path outputDirectory;
+	private final int maxConcurrentRunCount;
+	private final GenerationScheduler generationScheduler;
+	private final LongAdder creatureStepCount;
+
+	public SweepRunner(Properties sweep) throws IOException {
+		outputDirectory = Paths.get(sweep.getProperty(sweepKeyPrefix + "output-directory", "sweep"));
+		maxConcurrentRunCount = Integer.parseInt(sweep.getProperty(sweepKeyPrefix + "max-concurrent-runs", "2").trim());
+		int threadCount = Integer.parseInt(sweep.getProperty(sweepKeyPrefix + "threads", "0").trim());
+		int maxRunningGenerationCount = Integer.parseInt(sweep.getProperty(sweepKeyPrefix + "max-running-generations", "2").trim());
+		if (maxConcurrentRunCount < 1)
+			throw new IllegalArgumentException("at least one run must be able to run");
+
+		// every run draws from the same pool of workers, the generations of all runs take turns
+		ForkJoinGenerationScheduler forkJoinGenerationScheduler = threadCount == 0 ? new ForkJoinGenerationScheduler() : new ForkJoinGenerationScheduler(threadCount);
+		generationScheduler = new FairShareGenerationScheduler(forkJoinGenerationScheduler, maxRunningGenerationCount);
+		creatureStepCount = new LongAdder();
+
+		// every run writes its own outputs unless the sweep turns them off
+		List<String[]> arguments = new ArrayList<>();
+		arguments.add(new String[]{"--save-data", "true"});
+		variedKeys = new ArrayList<>();
+		for (String key : new TreeSet<>(sweep.stringPropertyNames())) {
+			if (key.startsWith(sweepKeyPrefix))
+				continue;
+
+			String[] values = sweep.getProperty(key).split("\\|");
+			if (values.length > 1)
+				variedKeys.add(key);
+
+			// build the cartesian product of all alternatives
+			List<String[]> expandedArguments = new ArrayList<>();
+			for (String[] runArguments : arguments)
+				for (String value : values) {
+					String[] expandedRunArguments = new String[runArguments.length + 2];
+					System.arraycopy(runArguments, 0, expandedRunArguments, 0, runArguments.length);
+					expandedRunArguments[runArguments.length] = "--" + key;
+					expandedRunArguments[runArguments.length + 1] = value.trim();
+					expandedArguments.add(expandedRunArguments);
+				}
+			arguments = expandedArguments;
+		}
+
+		configs = new ArrayList<>();
+		for (String[] runArguments : arguments)
+			configs.add(SimulationConfig.load(runArguments));
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length != 1)
+			throw new IllegalArgumentException("expected the path of the sweep definition as the only argument");
+
+		Properties sweep = new Properties();
+		try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+			sweep.load(reader);
+		}
+		new SweepRunner(sweep).run();
+	}
+
+	public void run() throws IOException, InterruptedException {
+		System.out.println("run,fingerprint," + String.join(",", variedKeys) + ",best,median,seconds,creature_steps_per_second,saved_creature_steps");
+
+		// only a limited number of populations is kept in memory at once
+		Semaphore runPermits = new Semaphore(maxConcurrentRunCount);
+		CountDownLatch doneLatch = new CountDownLatch(configs.size());
+		long startTime = System.nanoTime();
+		for (int i = 0; i < configs.size(); i++) {
+			runPermits.acquire();
+			startRun(i, configs.get(i), () -> {
+				runPermits.release();
+				doneLatch.countDown();
+			});
+		}
+		doneLatch.await();
+		generationScheduler.close();
+
+		// report the throughput over all runs
+		double seconds = (System.nanoTime() - startTime) / 1e9d;
+		System.err.printf(Locale.ROOT, "runs: %d, total: %.3f s, %.0f creature steps/s over all runs%n", configs.size(), seconds, creatureStepCount.sum() / seconds);
+	}
+
+	private void startRun(int runIndex, SimulationConfig config, Runnable doneCallback) throws IOException {
+		Path runDirectory = outputDirectory.resolve(String.format("run-%03d-%s", runIndex, config.getFingerprint()));
+		Files.createDirectories(runDirectory);
+		try (Writer writer = Files.newBufferedWriter(runDirectory.resolve("config.properties"), StandardCharsets.UTF_8)) {
+			config.toProperties().store(writer, null);
+		}
+		String filenameSpecies = runDirectory.resolve("species.csv").toString();
+
+		EventBus eventBus = new EventBus();
+		AppContext appContext = new AppContext(eventBus, config);
+		SimulationEngine simulationEngine = appContext.createSimulationEngine();
+		Population population = new Population(appContext, runDirectory.resolve("fitness.csv").toString(), runDirectory.resolve("mutation_rate.csv").toString(), filenameSpecies, simulationEngine, generationScheduler, new AliasParentSampler());
+
+		long startTime = System.nanoTime();
+		eventBus.listenFor(GenerationDoneEvent.class, event -> {
+			if (event.getGenerationCount() < config.getGenerationCount())
+				return;
+			population.stopSimulating();
+
+			if (config.getSaveData())
+				try {
+					new CSVConverterSpecies().convert(filenameSpecies, runDirectory.resolve("converted_species.csv").toString());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+
+			double seconds = (System.nanoTime() - startTime) / 1e9d;
+			long runCreatureStepCount = simulationEngine.getCreatureStepCount();
+			creatureStepCount.add(runCreatureStepCount);
+
+			StringBuilder line = new StringBuilder();
+			line.append(runIndex).append(',').append(config.getFingerprint());
+			Properties properties = config.toProperties();
+			for (String key : variedKeys)
+				line.append(",\"").append(properties.getProperty(key)).append('"');
+			line.append(',').append(event.getBestDistance()).append(',').append(event.getMedianDistance());
+			line.append(String.format(Locale.ROOT, ",%.3f,%.0f", seconds, runCreatureStepCount / seconds));
+			line.append(',').append(appContext.getPruning() != null ? appContext.getPruning().getSavedCreatureStepCount() : 0L);
+			synchronized (System.out) {
+				System.out.println(line);
+			}
+
+			doneCallback.run();
+		});
+		// the population reported the failure, the other runs go on
+		eventBus.listenFor(GenerationFailedEvent.class, event -> doneCallback.run());
+
+		population.initialize(config.getPopulationSize());
+		population.startSimulating();
+	}
+}
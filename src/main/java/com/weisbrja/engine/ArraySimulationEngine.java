@@ -0,0 +1,36 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class ArraySimulationEngine implements SimulationEngine {
+
+	// every thread reuses its own packed creatures so that simulating does not allocate
+	private final ThreadLocal<PackedCreatures> packedCreatures;
+	private final PhysicsParameters physicsParameters;
+	private final LongAdder creatureStepCount;
+
+	public ArraySimulationEngine(PhysicsParameters physicsParameters) {
+		this.physicsParameters = physicsParameters;
+		creatureStepCount = new LongAdder();
+		packedCreatures = ThreadLocal.withInitial(PackedCreatures::new);
+	}
+
+	@Override
+	public void simulate(Simulator simulator, int cycleCount) {
+		PackedCreatures packedCreatures = this.packedCreatures.get();
+		packedCreatures.clear();
+		packedCreatures.add(simulator.getGenome());
+
+		creatureStepCount.add(packedCreatures.simulate(cycleCount, physicsParameters));
+
+		simulator.setFitness(packedCreatures.getFitness(0, physicsParameters.getOnGroundFitness()));
+	}
+
+	@Override
+	public long getCreatureStepCount() {
+		return creatureStepCount.sum();
+	}
+}
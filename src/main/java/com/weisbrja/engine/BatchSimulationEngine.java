@@ -0,0 +1,59 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class BatchSimulationEngine implements SimulationEngine {
+
+	// every thread lays out its slice of the population in its own packed creatures
+	private final ThreadLocal<PackedCreatures> packedCreatures;
+	private final PhysicsParameters physicsParameters;
+	// cuts off hopeless creatures early, null if every creature is simulated to the end
+	private final Pruning pruning;
+	private final LongAdder creatureStepCount;
+
+	public BatchSimulationEngine(PhysicsParameters physicsParameters) {
+		this(physicsParameters, null);
+	}
+
+	public BatchSimulationEngine(PhysicsParameters physicsParameters, Pruning pruning) {
+		this.physicsParameters = physicsParameters;
+		this.pruning = pruning;
+		creatureStepCount = new LongAdder();
+		packedCreatures = ThreadLocal.withInitial(PackedCreatures::new);
+	}
+
+	@Override
+	public void simulate(Simulator simulator, int cycleCount) {
+		simulate(new Simulator[]{simulator}, 0, 1, cycleCount);
+	}
+
+	@Override
+	public void simulate(Simulator[] simulators, int from, int to, int cycleCount) {
+		simulate(simulators, from, to, cycleCount, pruning);
+	}
+
+	// simulate with the given pruning instead of the one of the engine, null if every creature is simulated to the end
+	public void simulate(Simulator[] simulators, int from, int to, int cycleCount, Pruning pruning) {
+		// pack the circles and muscles of the whole slice contiguously
+		PackedCreatures packedCreatures = this.packedCreatures.get();
+		packedCreatures.clear();
+		for (int i = from; i < to; i++)
+			packedCreatures.add(simulators[i].getGenome());
+
+		// step all creatures of the slice together until every one of them is done
+		creatureStepCount.add(packedCreatures.simulate(cycleCount, physicsParameters, pruning));
+
+		// report the fitness of every creature back to its simulator
+		double onGroundFitness = physicsParameters.getOnGroundFitness();
+		for (int i = from; i < to; i++)
+			simulators[i].setFitness(packedCreatures.getFitness(i - from, onGroundFitness), packedCreatures.getPruned(i - from));
+	}
+
+	@Override
+	public long getCreatureStepCount() {
+		return creatureStepCount.sum();
+	}
+}
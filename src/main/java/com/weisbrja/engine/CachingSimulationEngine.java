@@ -0,0 +1,134 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// remembers the fitness of the latest genomes, the physics are deterministic, so a genome that builds the same creature always gets the same fitness from the same engine
+// with pruning only creatures that were not cut off are remembered, they would not be cut off at a lower threshold either
+public class CachingSimulationEngine implements SimulationEngine {
+
+	private final SimulationEngine simulationEngine;
+	// null if every creature is simulated to the end
+	private final Pruning pruning;
+	// the least recently used genome is evicted once the cache is full
+	private final Map<GenomeKey, CachedFitness> fitnesses;
+	private final LongAdder lookupCount;
+	private final LongAdder hitCount;
+	private int cachedCycleCount;
+
+	public CachingSimulationEngine(SimulationEngine simulationEngine, int capacity) {
+		this(simulationEngine, capacity, null);
+	}
+
+	// the pruning has to be the one the wrapped engine prunes with
+	public CachingSimulationEngine(SimulationEngine simulationEngine, int capacity, Pruning pruning) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("the cache must hold at least one genome");
+
+		this.simulationEngine = simulationEngine;
+		this.pruning = pruning;
+		fitnesses = new LinkedHashMap<GenomeKey, CachedFitness>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<GenomeKey, CachedFitness> eldest) {
+				return size() > capacity;
+			}
+		};
+		lookupCount = new LongAdder();
+		hitCount = new LongAdder();
+	}
+
+	@Override
+	public void simulate(Simulator simulator, int cycleCount) {
+		simulate(new Simulator[]{simulator}, 0, 1, cycleCount);
+	}
+
+	@Override
+	public void simulate(Simulator[] simulators, int from, int to, int cycleCount) {
+		// look up every genome, the misses are gathered and simulated together
+		Simulator[] missedSimulators = new Simulator[to - from];
+		int missCount = 0;
+		// the threshold only changes between generations
+		double threshold = pruning != null ? pruning.getThreshold() : Double.NEGATIVE_INFINITY;
+		synchronized (fitnesses) {
+			// the fitness depends on the number of cycles as well
+			if (cycleCount != cachedCycleCount) {
+				fitnesses.clear();
+				cachedCycleCount = cycleCount;
+			}
+
+			for (int i = from; i < to; i++) {
+				// a creature that passed every checkpoint also passes them at a lower threshold, at a higher one it might be cut off
+				CachedFitness cachedFitness = fitnesses.get(new GenomeKey(simulators[i].getGenome()));
+				if (cachedFitness != null && threshold <= cachedFitness.threshold)
+					simulators[i].setFitness(cachedFitness.fitness);
+				else
+					missedSimulators[missCount++] = simulators[i];
+			}
+		}
+		lookupCount.add(to - from);
+		hitCount.add(to - from - missCount);
+
+		if (missCount == 0)
+			return;
+		simulationEngine.simulate(missedSimulators, 0, missCount, cycleCount);
+
+		synchronized (fitnesses) {
+			if (cycleCount == cachedCycleCount)
+				for (int i = 0; i < missCount; i++)
+					// the fitness of a creature that was cut off depends on the threshold, so it is not remembered
+					if (!missedSimulators[i].getPruned())
+						fitnesses.put(new GenomeKey(missedSimulators[i].getGenome()), new CachedFitness(missedSimulators[i].getFitness(), threshold));
+		}
+	}
+
+	// only the creatures that were actually simulated count
+	@Override
+	public long getCreatureStepCount() {
+		return simulationEngine.getCreatureStepCount();
+	}
+
+	public long getLookupCount() {
+		return lookupCount.sum();
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	private static class CachedFitness {
+
+		private final double fitness;
+		// the threshold the creature was simulated with
+		private final double threshold;
+
+		private CachedFitness(double fitness, double threshold) {
+			this.fitness = fitness;
+			this.threshold = threshold;
+		}
+	}
+
+	private static class GenomeKey {
+
+		private final Genome genome;
+		private final int hashCode;
+
+		private GenomeKey(Genome genome) {
+			this.genome = genome;
+			hashCode = genome.getPhysicsHashCode();
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof GenomeKey && hashCode == ((GenomeKey) object).hashCode && genome.hasSamePhysics(((GenomeKey) object).genome);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
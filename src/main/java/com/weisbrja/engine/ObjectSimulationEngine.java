@@ -0,0 +1,28 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class ObjectSimulationEngine implements SimulationEngine {
+
+	private final PhysicsParameters physicsParameters;
+	private final LongAdder creatureStepCount;
+
+	public ObjectSimulationEngine(PhysicsParameters physicsParameters) {
+		this.physicsParameters = physicsParameters;
+		creatureStepCount = new LongAdder();
+	}
+
+	@Override
+	public void simulate(Simulator simulator, int cycleCount) {
+		// simulate the circle and muscle objects of the creature directly
+		creatureStepCount.add(simulator.start(cycleCount, physicsParameters));
+	}
+
+	@Override
+	public long getCreatureStepCount() {
+		return creatureStepCount.sum();
+	}
+}
@@ -0,0 +1,361 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.PhysicsParameters;
+
+import java.util.Arrays;
+
+public class PackedCreatures {
+
+	private int creatureCount;
+	private int circleCount;
+	private int muscleCount;
+
+	// creature layout, the circles and muscles of creature i lie in [start[i], start[i + 1])
+	private int[] circleStart;
+	private int[] muscleStart;
+	private int[] activeCreatures;
+	// kept up to date by the circle updates, so that the termination checks and the fitness do not have to scan the circles
+	private int[] groundedCircleCount;
+	private double[] positionXSum;
+	// whether the creature was cut off at a pruning checkpoint, its fitness is the one it had there
+	private boolean[] pruned;
+
+	// circle state
+	private double[] positionX;
+	private double[] positionY;
+	private double[] velocityX;
+	private double[] velocityY;
+	private double[] accelerationX;
+	private double[] accelerationY;
+	private double[] radius;
+	private double[] frictionPercentage;
+
+	// muscle state
+	private int[] muscleCircle1;
+	private int[] muscleCircle2;
+	private double[] strength;
+	private double[] lengthPhaseX;
+	private double[] lengthPhaseY;
+	private double[] clockPhaseX;
+	private double[] clockPhaseY;
+	private double[] clockSpeed;
+	private double[] clock;
+
+	public PackedCreatures() {
+		circleStart = new int[2];
+		muscleStart = new int[2];
+		activeCreatures = new int[1];
+		groundedCircleCount = new int[1];
+		positionXSum = new double[1];
+		pruned = new boolean[1];
+
+		positionX = new double[8];
+		positionY = new double[8];
+		velocityX = new double[8];
+		velocityY = new double[8];
+		accelerationX = new double[8];
+		accelerationY = new double[8];
+		radius = new double[8];
+		frictionPercentage = new double[8];
+
+		muscleCircle1 = new int[16];
+		muscleCircle2 = new int[16];
+		strength = new double[16];
+		lengthPhaseX = new double[16];
+		lengthPhaseY = new double[16];
+		clockPhaseX = new double[16];
+		clockPhaseY = new double[16];
+		clockSpeed = new double[16];
+		clock = new double[16];
+	}
+
+	public void clear() {
+		creatureCount = 0;
+		circleCount = 0;
+		muscleCount = 0;
+	}
+
+	private void ensureCreatureCapacity(int capacity) {
+		if (capacity + 1 > circleStart.length) {
+			int newCapacity = Math.max(capacity + 1, circleStart.length * 2);
+			circleStart = Arrays.copyOf(circleStart, newCapacity);
+			muscleStart = Arrays.copyOf(muscleStart, newCapacity);
+			activeCreatures = Arrays.copyOf(activeCreatures, newCapacity);
+			groundedCircleCount = Arrays.copyOf(groundedCircleCount, newCapacity);
+			positionXSum = Arrays.copyOf(positionXSum, newCapacity);
+			pruned = Arrays.copyOf(pruned, newCapacity);
+		}
+	}
+
+	private void ensureCircleCapacity(int capacity) {
+		if (capacity > positionX.length) {
+			int newCapacity = Math.max(capacity, positionX.length * 2);
+			positionX = Arrays.copyOf(positionX, newCapacity);
+			positionY = Arrays.copyOf(positionY, newCapacity);
+			velocityX = Arrays.copyOf(velocityX, newCapacity);
+			velocityY = Arrays.copyOf(velocityY, newCapacity);
+			accelerationX = Arrays.copyOf(accelerationX, newCapacity);
+			accelerationY = Arrays.copyOf(accelerationY, newCapacity);
+			radius = Arrays.copyOf(radius, newCapacity);
+			frictionPercentage = Arrays.copyOf(frictionPercentage, newCapacity);
+		}
+	}
+
+	private void ensureMuscleCapacity(int capacity) {
+		if (capacity > muscleCircle1.length) {
+			int newCapacity = Math.max(capacity, muscleCircle1.length * 2);
+			muscleCircle1 = Arrays.copyOf(muscleCircle1, newCapacity);
+			muscleCircle2 = Arrays.copyOf(muscleCircle2, newCapacity);
+			strength = Arrays.copyOf(strength, newCapacity);
+			lengthPhaseX = Arrays.copyOf(lengthPhaseX, newCapacity);
+			lengthPhaseY = Arrays.copyOf(lengthPhaseY, newCapacity);
+			clockPhaseX = Arrays.copyOf(clockPhaseX, newCapacity);
+			clockPhaseY = Arrays.copyOf(clockPhaseY, newCapacity);
+			clockSpeed = Arrays.copyOf(clockSpeed, newCapacity);
+			clock = Arrays.copyOf(clock, newCapacity);
+		}
+	}
+
+	public void add(Genome genome) {
+		// only grow the arrays if the creature does not fit into them
+		ensureCreatureCapacity(creatureCount + 1);
+		ensureCircleCapacity(circleCount + genome.getCircleCount());
+		ensureMuscleCapacity(muscleCount + genome.getMuscleCount());
+
+		// instantiate the physics state of the creature at its start position
+		pruned[creatureCount] = false;
+		int firstCircle = circleCount;
+		int grounded = 0;
+		double sum = 0d;
+		for (int i = 0; i < genome.getCircleCount(); i++) {
+			positionX[circleCount] = genome.getStartPositionX(i);
+			positionY[circleCount] = genome.getStartPositionY(i);
+			velocityX[circleCount] = 0d;
+			velocityY[circleCount] = 0d;
+			accelerationX[circleCount] = 0d;
+			accelerationY[circleCount] = 0d;
+			radius[circleCount] = genome.getRadius(i);
+			frictionPercentage[circleCount] = genome.getFrictionPercentage(i);
+			if (getOnGroundCircle(circleCount))
+				grounded++;
+			sum += positionX[circleCount];
+			circleCount++;
+		}
+		groundedCircleCount[creatureCount] = grounded;
+		positionXSum[creatureCount] = sum;
+
+		for (int i = 0; i < genome.getMuscleCount(); i++) {
+			muscleCircle1[muscleCount] = firstCircle + genome.getCircle1(i);
+			muscleCircle2[muscleCount] = firstCircle + genome.getCircle2(i);
+			strength[muscleCount] = genome.getStrength(i);
+			lengthPhaseX[muscleCount] = genome.getLengthPhaseX(i);
+			lengthPhaseY[muscleCount] = genome.getLengthPhaseY(i);
+			clockPhaseX[muscleCount] = genome.getClockPhaseX(i);
+			clockPhaseY[muscleCount] = genome.getClockPhaseY(i);
+			clockSpeed[muscleCount] = genome.getClockSpeed(i);
+			clock[muscleCount] = 0d;
+			muscleCount++;
+		}
+
+		creatureCount++;
+		circleStart[creatureCount] = circleCount;
+		muscleStart[creatureCount] = muscleCount;
+	}
+
+	// return the number of creature steps, every cycle of every creature that was not done yet counts as one step
+	public long simulate(int cycleCount, PhysicsParameters physicsParameters) {
+		return simulate(cycleCount, physicsParameters, null);
+	}
+
+	// the creatures the pruning cuts off keep the state they had at the checkpoint
+	public long simulate(int cycleCount, PhysicsParameters physicsParameters, Pruning pruning) {
+		// read the parameters into locals once, so that the inner loops only see constants
+		boolean stopCreaturesWhenOnGround = physicsParameters.getStopCreaturesWhenOnGround();
+		double gravityY = physicsParameters.getGravityY();
+		double airFriction = physicsParameters.getAirFriction();
+		double groundDamping = physicsParameters.getGroundDamping();
+		double maxMuscleForce = physicsParameters.getMaxMuscleForce();
+		double onGroundFitness = physicsParameters.getOnGroundFitness();
+
+		int activeCount = creatureCount;
+		for (int i = 0; i < creatureCount; i++)
+			activeCreatures[i] = i;
+
+		// advance every active creature by one step per cycle
+		long creatureStepCount = 0L;
+		for (int cycle = 0; cycle < cycleCount && activeCount > 0; cycle++) {
+			boolean checkpoint = pruning != null && pruning.isCheckpoint(cycle);
+			for (int i = 0; i < activeCount; ) {
+				int creature = activeCreatures[i];
+				// creatures that stop on the ground anyway are not counted as pruned
+				boolean done = stopCreaturesWhenOnGround && getOnGround(creature);
+				if (!done && checkpoint && pruning.prune(getFitness(creature, onGroundFitness), cycle, cycleCount)) {
+					pruned[creature] = true;
+					done = true;
+				}
+				if (done)
+					// mask out the creature by moving the last active creature into its place
+					activeCreatures[i] = activeCreatures[--activeCount];
+				else {
+					step(creature, gravityY, airFriction, groundDamping, maxMuscleForce);
+					i++;
+				}
+			}
+			creatureStepCount += activeCount;
+		}
+		return creatureStepCount;
+	}
+
+	public void step(int creature, double gravityY, double airFriction, double groundDamping, double maxMuscleForce) {
+		int circleFrom = circleStart[creature];
+		int circleTo = circleStart[creature + 1];
+
+		// apply the gravity to every circle
+		for (int i = circleFrom; i < circleTo; i++)
+			accelerationY[i] = accelerationY[i] + gravityY;
+
+		for (int i = muscleStart[creature]; i < muscleStart[creature + 1]; i++)
+			updateMuscle(i, maxMuscleForce);
+		// sum the positions in the same order as a full scan would, so that the fitness stays bit-identical
+		int grounded = groundedCircleCount[creature];
+		double sum = 0d;
+		for (int i = circleFrom; i < circleTo; i++) {
+			grounded += updateCircle(i, gravityY, airFriction, groundDamping);
+			sum += positionX[i];
+		}
+		groundedCircleCount[creature] = grounded;
+		positionXSum[creature] = sum;
+	}
+
+	// mirrors Muscle.update operation by operation so that the results are bit-identical
+	private void updateMuscle(int i, double maxMuscleForce) {
+		// update the target length based on the clock and the clock phases
+		double targetLength;
+		if (clockPhaseX[i] < clockPhaseY[i])
+			if (clock[i] >= clockPhaseX[i] && clock[i] < clockPhaseY[i])
+				targetLength = lengthPhaseX[i];
+			else
+				targetLength = lengthPhaseY[i];
+		else
+			if (clock[i] >= clockPhaseY[i] && clock[i] < clockPhaseX[i])
+				targetLength = lengthPhaseY[i];
+			else
+				targetLength = lengthPhaseX[i];
+
+		clock[i] = (clock[i] + clockSpeed[i]) % 1d;
+
+		// calculate the distance between the circles
+		int circle1 = muscleCircle1[i];
+		int circle2 = muscleCircle2[i];
+		double positionDifferenceX = positionX[circle1] - positionX[circle2];
+		double positionDifferenceY = positionY[circle1] - positionY[circle2];
+		double distance = Math.sqrt(positionDifferenceX * positionDifferenceX + positionDifferenceY * positionDifferenceY);
+
+		if (distance > 0d) {
+			double forceScalingFactor = Math.min(Math.max(1d - distance / targetLength, -maxMuscleForce), maxMuscleForce) * strength[i];
+			double halfForceScalingFactor = forceScalingFactor / 2d;
+
+			// apply the forces to the circles along the normalized position differences
+			double norm = 1d / distance;
+			accelerationX[circle1] += positionDifferenceX * norm * halfForceScalingFactor;
+			accelerationY[circle1] += positionDifferenceY * norm * halfForceScalingFactor;
+			accelerationX[circle2] += (positionX[circle2] - positionX[circle1]) * norm * halfForceScalingFactor;
+			accelerationY[circle2] += (positionY[circle2] - positionY[circle1]) * norm * halfForceScalingFactor;
+		}
+	}
+
+	// mirrors Circle.update operation by operation so that the results are bit-identical, return the change of the number of grounded circles
+	private int updateCircle(int i, double gravityY, double airFriction, double groundDamping) {
+		double positionX = this.positionX[i];
+		double positionY = this.positionY[i];
+		double velocityX = this.velocityX[i];
+		double velocityY = this.velocityY[i];
+		double radius = this.radius[i];
+
+		// check if the circle is rolling on the ground
+		boolean wasOnGround = positionY + radius == 0d && velocityY == 0d;
+		if (wasOnGround) {
+			velocityX = velocityX + accelerationX[i];
+			if (accelerationY[i] < 0d)
+				velocityY = velocityY + accelerationY[i];
+			velocityX = velocityX * (1d - frictionPercentage[i]);
+		} else {
+			velocityX += accelerationX[i];
+			velocityY += accelerationY[i];
+		}
+
+		// apply air friction to the velocity
+		velocityX *= airFriction;
+		velocityY *= airFriction;
+
+		// check if the circle would collide with the ground
+		if (positionY + velocityY + radius > 0d) {
+			// move the circle until it collides with the ground
+			double scale = (-radius - positionY) / velocityY;
+			double velocity1X = velocityX * scale;
+			double velocity1Y = velocityY * scale;
+			positionX += velocity1X;
+			positionY += velocity1Y;
+
+			// negate the y-velocity and scale it by the ground dampening factor
+			velocityY = -velocityY * groundDamping;
+
+			// calculate the rest of the velocity
+			double norm = 1d / Math.sqrt(velocityX * velocityX + velocityY * velocityY);
+			double restLength = Math.sqrt(velocityX * velocityX + velocityY * velocityY) - Math.sqrt(velocity1X * velocity1X + velocity1Y * velocity1Y);
+			double velocity2X = velocityX * norm * restLength;
+			double velocity2Y = velocityY * norm * restLength;
+
+			// check if the rest y-velocity is less than or equal to the gravity-y
+			if (Math.abs(velocity2Y) <= gravityY) {
+				velocity2Y = 0d;
+				velocityY = 0d;
+			}
+
+			// add the rest of the velocity to the position
+			positionX += velocity2X;
+			positionY += velocity2Y;
+		} else {
+			// add the velocity to the position
+			positionX += velocityX;
+			positionY += velocityY;
+		}
+
+		this.positionX[i] = positionX;
+		this.positionY[i] = positionY;
+		this.velocityX[i] = velocityX;
+		this.velocityY[i] = velocityY;
+
+		// reset the acceleration the same way Vector2d.scale(0d) does
+		accelerationX[i] *= 0d;
+		accelerationY[i] *= 0d;
+
+		// the same exact comparison as the check at the start of the next update
+		boolean onGround = positionY + radius == 0d && velocityY == 0d;
+		return (onGround ? 1 : 0) - (wasOnGround ? 1 : 0);
+	}
+
+	private boolean getOnGroundCircle(int i) {
+		return positionY[i] + radius[i] == 0d && velocityY[i] == 0d;
+	}
+
+	public boolean getOnGround(int creature) {
+		return groundedCircleCount[creature] == circleStart[creature + 1] - circleStart[creature];
+	}
+
+	public boolean getPruned(int creature) {
+		return pruned[creature];
+	}
+
+	public double getFitness(int creature, double onGroundFitness) {
+		if (getOnGround(creature))
+			return onGroundFitness;
+		else
+			return positionXSum[creature] / (circleStart[creature + 1] - circleStart[creature]);
+	}
+
+	public int getCreatureCount() {
+		return creatureCount;
+	}
+}
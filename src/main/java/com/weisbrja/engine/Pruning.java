@@ -0,0 +1,89 @@
+package com.weisbrja.engine;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+// cuts off creatures at regular checkpoints once they cannot reach a percentile of the fitness of the previous generation anymore
+public class Pruning {
+
+	private final PruningPolicy pruningPolicy;
+	private final int checkpointInterval;
+	private final double percentile;
+	private final LongAdder prunedCreatureCount;
+	private final LongAdder savedCreatureStepCount;
+	// nothing is pruned until the first generation is done
+	private volatile double threshold;
+
+	public Pruning(PruningPolicy pruningPolicy, int checkpointInterval, double percentile) {
+		if (checkpointInterval < 1)
+			throw new IllegalArgumentException("the checkpoint interval must be positive");
+
+		this.pruningPolicy = pruningPolicy;
+		this.checkpointInterval = checkpointInterval;
+		this.percentile = percentile;
+		prunedCreatureCount = new LongAdder();
+		savedCreatureStepCount = new LongAdder();
+		threshold = Double.NEGATIVE_INFINITY;
+	}
+
+	// read the pruning a coordinator sent along with a batch, the counts start at zero
+	public static Pruning read(DataInput input) throws IOException {
+		Pruning pruning = new Pruning(new SpeedPruningPolicy(input.readDouble()), input.readInt(), input.readDouble());
+		pruning.setThreshold(input.readDouble());
+		return pruning;
+	}
+
+	// send the pruning with its current threshold to a simulation worker, the workers only know the speed policy
+	public void write(DataOutput output) throws IOException {
+		if (!(pruningPolicy instanceof SpeedPruningPolicy))
+			throw new IllegalStateException("only the speed pruning policy can be sent to simulation workers");
+
+		output.writeDouble(((SpeedPruningPolicy) pruningPolicy).getMaxSpeed());
+		output.writeInt(checkpointInterval);
+		output.writeDouble(percentile);
+		output.writeDouble(threshold);
+	}
+
+	public boolean isCheckpoint(int cycle) {
+		return cycle > 0 && cycle % checkpointInterval == 0;
+	}
+
+	// whether the creature with the given fitness after the given cycle is cut off, the cycles it would have had are counted as saved
+	public boolean prune(double fitness, int cycle, int cycleCount) {
+		if (pruningPolicy.getFitnessBound(fitness, cycle, cycleCount) >= threshold)
+			return false;
+
+		prunedCreatureCount.increment();
+		savedCreatureStepCount.add(cycleCount - cycle);
+		return true;
+	}
+
+	// the percentile of the fitness of a generation the next generation has to be able to reach
+	public double getPercentile() {
+		return percentile;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+
+	// count the creatures that were cut off elsewhere, e.g. by a simulation worker
+	public void count(long prunedCreatureCount, long savedCreatureStepCount) {
+		this.prunedCreatureCount.add(prunedCreatureCount);
+		this.savedCreatureStepCount.add(savedCreatureStepCount);
+	}
+
+	public long getPrunedCreatureCount() {
+		return prunedCreatureCount.sum();
+	}
+
+	public long getSavedCreatureStepCount() {
+		return savedCreatureStepCount.sum();
+	}
+}
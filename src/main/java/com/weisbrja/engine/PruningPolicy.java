@@ -0,0 +1,8 @@
+package com.weisbrja.engine;
+
+// decides how far a creature can still get, creatures that cannot reach the threshold anymore are cut off
+public interface PruningPolicy {
+
+	// return an upper bound of the fitness the creature can have after the last cycle, given its fitness after the given cycle
+	double getFitnessBound(double fitness, int cycle, int cycleCount);
+}
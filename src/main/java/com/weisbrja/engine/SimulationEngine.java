@@ -0,0 +1,16 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.Simulator;
+
+public interface SimulationEngine {
+
+	void simulate(Simulator simulator, int cycleCount);
+
+	default void simulate(Simulator[] simulators, int from, int to, int cycleCount) {
+		for (int i = from; i < to; i++)
+			simulate(simulators[i], cycleCount);
+	}
+
+	// the number of creature steps simulated by this engine so far, over all threads
+	long getCreatureStepCount();
+}
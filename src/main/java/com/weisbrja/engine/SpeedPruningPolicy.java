@@ -0,0 +1,20 @@
+package com.weisbrja.engine;
+
+// assumes that no creature moves its center faster than a maximum speed
+public class SpeedPruningPolicy implements PruningPolicy {
+
+	private final double maxSpeed;
+
+	public SpeedPruningPolicy(double maxSpeed) {
+		this.maxSpeed = maxSpeed;
+	}
+
+	@Override
+	public double getFitnessBound(double fitness, int cycle, int cycleCount) {
+		return fitness + maxSpeed * (cycleCount - cycle);
+	}
+
+	public double getMaxSpeed() {
+		return maxSpeed;
+	}
+}
@@ -0,0 +1,429 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.PhysicsParameters;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// the physics state of many creatures laid out so that one vector lane holds one creature, the circle updates of a whole group of creatures run in the same instructions
+public class VectorCreatures {
+
+	private static final VectorSpecies<Double> species = DoubleVector.SPECIES_PREFERRED;
+	private static final int laneCount = species.length();
+
+	private final List<Genome> genomes;
+	private int groupCount;
+	// the creatures are sorted by their number of circles, so that the lanes of a group waste few slots, lane[i] is where the i-th added creature lies
+	private int[] lane;
+	private int[] genomeIndex;
+
+	// creature layout, the creature in lane c is lane c % laneCount of group c / laneCount, its circle i lies at (groupSlotStart[c / laneCount] + i) * laneCount + c % laneCount
+	private int[] groupSlotStart;
+	private int[] muscleStart;
+	// per creature values are doubles, so that they can be compared lane by lane with the circle state
+	private double[] circleCount;
+	private double[] groundedCircleCount;
+	private double[] positionXSum;
+	// 1 while the creature is being simulated, a mask built from an array does not have to be boxed like one built from bits
+	private double[] active;
+	// whether the creature was cut off at a pruning checkpoint, its fitness is the one it had there
+	private boolean[] pruned;
+
+	// circle state, the slots of a group that are beyond the circles of a creature are never stored to
+	private double[] positionX;
+	private double[] positionY;
+	private double[] velocityX;
+	private double[] velocityY;
+	private double[] accelerationX;
+	private double[] accelerationY;
+	private double[] radius;
+	private double[] frictionPercentage;
+
+	// muscle state, the muscles of creature i lie in [muscleStart[i], muscleStart[i + 1]), the muscles are updated one by one
+	private int[] muscleCircle1;
+	private int[] muscleCircle2;
+	private double[] strength;
+	private double[] lengthPhaseX;
+	private double[] lengthPhaseY;
+	private double[] clockPhaseX;
+	private double[] clockPhaseY;
+	private double[] clockSpeed;
+	private double[] clock;
+
+	public VectorCreatures() {
+		genomes = new ArrayList<>();
+		lane = new int[laneCount];
+		genomeIndex = new int[laneCount];
+		groupSlotStart = new int[2];
+		muscleStart = new int[laneCount + 1];
+		circleCount = new double[laneCount];
+		groundedCircleCount = new double[laneCount];
+		positionXSum = new double[laneCount];
+		active = new double[laneCount];
+		pruned = new boolean[laneCount];
+
+		positionX = new double[8 * laneCount];
+		positionY = new double[8 * laneCount];
+		velocityX = new double[8 * laneCount];
+		velocityY = new double[8 * laneCount];
+		accelerationX = new double[8 * laneCount];
+		accelerationY = new double[8 * laneCount];
+		radius = new double[8 * laneCount];
+		frictionPercentage = new double[8 * laneCount];
+
+		muscleCircle1 = new int[16];
+		muscleCircle2 = new int[16];
+		strength = new double[16];
+		lengthPhaseX = new double[16];
+		lengthPhaseY = new double[16];
+		clockPhaseX = new double[16];
+		clockPhaseY = new double[16];
+		clockSpeed = new double[16];
+		clock = new double[16];
+	}
+
+	public static int getLaneCount() {
+		return laneCount;
+	}
+
+	public void clear() {
+		genomes.clear();
+		groupCount = 0;
+	}
+
+	// the creatures are laid out when they are simulated, because the slots of a group depend on its largest creature
+	public void add(Genome genome) {
+		genomes.add(genome);
+	}
+
+	private void layOut() {
+		// pad the last group with creatures without circles, their lanes are never active
+		groupCount = (genomes.size() + laneCount - 1) / laneCount;
+		int creatureCapacity = groupCount * laneCount;
+		if (creatureCapacity > circleCount.length) {
+			circleCount = new double[creatureCapacity];
+			groundedCircleCount = new double[creatureCapacity];
+			positionXSum = new double[creatureCapacity];
+			active = new double[creatureCapacity];
+			pruned = new boolean[creatureCapacity];
+			muscleStart = new int[creatureCapacity + 1];
+			lane = new int[creatureCapacity];
+			genomeIndex = new int[creatureCapacity];
+		}
+		if (groupCount + 1 > groupSlotStart.length)
+			groupSlotStart = new int[groupCount + 1];
+
+		// counting sort by the number of circles, the creatures are independent of each other, so their order does not change any fitness
+		int maxCircleCount = 0;
+		for (Genome genome : genomes)
+			maxCircleCount = Math.max(maxCircleCount, genome.getCircleCount());
+		int[] nextLane = new int[maxCircleCount + 2];
+		for (Genome genome : genomes)
+			nextLane[genome.getCircleCount() + 1]++;
+		for (int i = 1; i < nextLane.length; i++)
+			nextLane[i] += nextLane[i - 1];
+		for (int i = 0; i < genomes.size(); i++) {
+			lane[i] = nextLane[genomes.get(i).getCircleCount()]++;
+			genomeIndex[lane[i]] = i;
+		}
+
+		// every group gets as many circle slots as its largest creature has circles
+		int slotCount = 0;
+		int muscleCount = 0;
+		for (int group = 0; group < groupCount; group++) {
+			groupSlotStart[group] = slotCount;
+			for (int creature = group * laneCount; creature < Math.min((group + 1) * laneCount, genomes.size()); creature++) {
+				slotCount = Math.max(slotCount, groupSlotStart[group] + genomes.get(genomeIndex[creature]).getCircleCount());
+				muscleCount += genomes.get(genomeIndex[creature]).getMuscleCount();
+			}
+		}
+		groupSlotStart[groupCount] = slotCount;
+		ensureCircleCapacity(slotCount * laneCount);
+		ensureMuscleCapacity(muscleCount);
+
+		// instantiate the physics state of every creature at its start position
+		muscleCount = 0;
+		for (int creature = 0; creature < creatureCapacity; creature++) {
+			muscleStart[creature] = muscleCount;
+			pruned[creature] = false;
+			if (creature >= genomes.size()) {
+				circleCount[creature] = 0d;
+				groundedCircleCount[creature] = 0d;
+				positionXSum[creature] = 0d;
+				active[creature] = 0d;
+				continue;
+			}
+
+			Genome genome = genomes.get(genomeIndex[creature]);
+			int grounded = 0;
+			double sum = 0d;
+			for (int i = 0; i < genome.getCircleCount(); i++) {
+				int circle = getCircleIndex(creature, i);
+				positionX[circle] = genome.getStartPositionX(i);
+				positionY[circle] = genome.getStartPositionY(i);
+				velocityX[circle] = 0d;
+				velocityY[circle] = 0d;
+				accelerationX[circle] = 0d;
+				accelerationY[circle] = 0d;
+				radius[circle] = genome.getRadius(i);
+				frictionPercentage[circle] = genome.getFrictionPercentage(i);
+				if (positionY[circle] + radius[circle] == 0d && velocityY[circle] == 0d)
+					grounded++;
+				sum += positionX[circle];
+			}
+			circleCount[creature] = genome.getCircleCount();
+			groundedCircleCount[creature] = grounded;
+			positionXSum[creature] = sum;
+			active[creature] = 1d;
+
+			for (int i = 0; i < genome.getMuscleCount(); i++) {
+				muscleCircle1[muscleCount] = getCircleIndex(creature, genome.getCircle1(i));
+				muscleCircle2[muscleCount] = getCircleIndex(creature, genome.getCircle2(i));
+				strength[muscleCount] = genome.getStrength(i);
+				lengthPhaseX[muscleCount] = genome.getLengthPhaseX(i);
+				lengthPhaseY[muscleCount] = genome.getLengthPhaseY(i);
+				clockPhaseX[muscleCount] = genome.getClockPhaseX(i);
+				clockPhaseY[muscleCount] = genome.getClockPhaseY(i);
+				clockSpeed[muscleCount] = genome.getClockSpeed(i);
+				clock[muscleCount] = 0d;
+				muscleCount++;
+			}
+		}
+		muscleStart[creatureCapacity] = muscleCount;
+	}
+
+	private int getCircleIndex(int creature, int circle) {
+		return (groupSlotStart[creature / laneCount] + circle) * laneCount + creature % laneCount;
+	}
+
+	private void ensureCircleCapacity(int capacity) {
+		if (capacity > positionX.length) {
+			int newCapacity = Math.max(capacity, positionX.length * 2);
+			positionX = Arrays.copyOf(positionX, newCapacity);
+			positionY = Arrays.copyOf(positionY, newCapacity);
+			velocityX = Arrays.copyOf(velocityX, newCapacity);
+			velocityY = Arrays.copyOf(velocityY, newCapacity);
+			accelerationX = Arrays.copyOf(accelerationX, newCapacity);
+			accelerationY = Arrays.copyOf(accelerationY, newCapacity);
+			radius = Arrays.copyOf(radius, newCapacity);
+			frictionPercentage = Arrays.copyOf(frictionPercentage, newCapacity);
+		}
+	}
+
+	private void ensureMuscleCapacity(int capacity) {
+		if (capacity > muscleCircle1.length) {
+			int newCapacity = Math.max(capacity, muscleCircle1.length * 2);
+			muscleCircle1 = Arrays.copyOf(muscleCircle1, newCapacity);
+			muscleCircle2 = Arrays.copyOf(muscleCircle2, newCapacity);
+			strength = Arrays.copyOf(strength, newCapacity);
+			lengthPhaseX = Arrays.copyOf(lengthPhaseX, newCapacity);
+			lengthPhaseY = Arrays.copyOf(lengthPhaseY, newCapacity);
+			clockPhaseX = Arrays.copyOf(clockPhaseX, newCapacity);
+			clockPhaseY = Arrays.copyOf(clockPhaseY, newCapacity);
+			clockSpeed = Arrays.copyOf(clockSpeed, newCapacity);
+			clock = Arrays.copyOf(clock, newCapacity);
+		}
+	}
+
+	// return the number of creature steps, counted the same way as PackedCreatures.simulate counts them
+	public long simulate(int cycleCount, PhysicsParameters physicsParameters, Pruning pruning) {
+		layOut();
+
+		// the creatures are independent of each other, so every group can be simulated to the end on its own
+		long creatureStepCount = 0L;
+		for (int group = 0; group < groupCount; group++)
+			creatureStepCount += simulateGroup(group, cycleCount, physicsParameters, pruning);
+		return creatureStepCount;
+	}
+
+	private long simulateGroup(int group, int cycleCount, PhysicsParameters physicsParameters, Pruning pruning) {
+		boolean stopCreaturesWhenOnGround = physicsParameters.getStopCreaturesWhenOnGround();
+		double gravityY = physicsParameters.getGravityY();
+		double airFriction = physicsParameters.getAirFriction();
+		double groundDamping = physicsParameters.getGroundDamping();
+		double maxMuscleForce = physicsParameters.getMaxMuscleForce();
+		double onGroundFitness = physicsParameters.getOnGroundFitness();
+
+		int firstCreature = group * laneCount;
+		DoubleVector circleCounts = DoubleVector.fromArray(species, circleCount, firstCreature);
+
+		long creatureStepCount = 0L;
+		for (int cycle = 0; cycle < cycleCount; cycle++) {
+			// mask out the creatures that are done, in the same order of checks as PackedCreatures.simulate
+			if (stopCreaturesWhenOnGround) {
+				VectorMask<Double> onGround = DoubleVector.fromArray(species, groundedCircleCount, firstCreature).compare(VectorOperators.EQ, circleCounts);
+				DoubleVector.fromArray(species, active, firstCreature).blend(0d, onGround).intoArray(active, firstCreature);
+			}
+			if (pruning != null && pruning.isCheckpoint(cycle))
+				for (int creature = firstCreature; creature < firstCreature + laneCount; creature++)
+					if (active[creature] != 0d && pruning.prune(getLaneFitness(creature, onGroundFitness), cycle, cycleCount)) {
+						active[creature] = 0d;
+						pruned[creature] = true;
+					}
+
+			int activeCount = DoubleVector.fromArray(species, active, firstCreature).compare(VectorOperators.NE, 0d).trueCount();
+			if (activeCount == 0)
+				break;
+			step(group, gravityY, airFriction, groundDamping, maxMuscleForce);
+			creatureStepCount += activeCount;
+		}
+		return creatureStepCount;
+	}
+
+	// vectors and masks are only used within a method, so that the jit does not have to box them when a call is not inlined
+	// masked stores and masked operations are written as blends, because the jit of java 17 does not compile them to vector instructions yet
+	private void step(int group, double gravityY, double airFriction, double groundDamping, double maxMuscleForce) {
+		int firstCreature = group * laneCount;
+		int slotFrom = groupSlotStart[group];
+		int slotTo = groupSlotStart[group + 1];
+
+		// apply the gravity to every circle
+		VectorMask<Double> active = DoubleVector.fromArray(species, this.active, firstCreature).compare(VectorOperators.NE, 0d);
+		DoubleVector circleCounts = DoubleVector.fromArray(species, circleCount, firstCreature);
+		for (int slot = slotFrom; slot < slotTo; slot++) {
+			VectorMask<Double> mask = active.and(circleCounts.compare(VectorOperators.GT, (double) (slot - slotFrom)));
+			DoubleVector accelerationY = DoubleVector.fromArray(species, this.accelerationY, slot * laneCount);
+			accelerationY.blend(accelerationY.add(gravityY), mask).intoArray(this.accelerationY, slot * laneCount);
+		}
+
+		// the muscles scatter their forces onto arbitrary circles of their creature, so they are updated one by one
+		for (int creature = firstCreature; creature < firstCreature + laneCount; creature++)
+			if (this.active[creature] != 0d)
+				for (int i = muscleStart[creature]; i < muscleStart[creature + 1]; i++)
+					updateMuscle(i, maxMuscleForce);
+
+		// the positions are summed again in the same order as PackedCreatures.step sums them
+		DoubleVector.fromArray(species, positionXSum, firstCreature).blend(0d, active).intoArray(positionXSum, firstCreature);
+		for (int slot = slotFrom; slot < slotTo; slot++)
+			updateCircles(firstCreature, slot, slot - slotFrom, gravityY, airFriction, groundDamping);
+	}
+
+	// mirrors PackedCreatures.updateMuscle operation by operation so that the results are bit-identical
+	private void updateMuscle(int i, double maxMuscleForce) {
+		// update the target length based on the clock and the clock phases
+		double targetLength;
+		if (clockPhaseX[i] < clockPhaseY[i])
+			if (clock[i] >= clockPhaseX[i] && clock[i] < clockPhaseY[i])
+				targetLength = lengthPhaseX[i];
+			else
+				targetLength = lengthPhaseY[i];
+		else
+			if (clock[i] >= clockPhaseY[i] && clock[i] < clockPhaseX[i])
+				targetLength = lengthPhaseY[i];
+			else
+				targetLength = lengthPhaseX[i];
+
+		clock[i] = (clock[i] + clockSpeed[i]) % 1d;
+
+		// calculate the distance between the circles
+		int circle1 = muscleCircle1[i];
+		int circle2 = muscleCircle2[i];
+		double positionDifferenceX = positionX[circle1] - positionX[circle2];
+		double positionDifferenceY = positionY[circle1] - positionY[circle2];
+		double distance = Math.sqrt(positionDifferenceX * positionDifferenceX + positionDifferenceY * positionDifferenceY);
+
+		if (distance > 0d) {
+			double forceScalingFactor = Math.min(Math.max(1d - distance / targetLength, -maxMuscleForce), maxMuscleForce) * strength[i];
+			double halfForceScalingFactor = forceScalingFactor / 2d;
+
+			// apply the forces to the circles along the normalized position differences
+			double norm = 1d / distance;
+			accelerationX[circle1] += positionDifferenceX * norm * halfForceScalingFactor;
+			accelerationY[circle1] += positionDifferenceY * norm * halfForceScalingFactor;
+			accelerationX[circle2] += (positionX[circle2] - positionX[circle1]) * norm * halfForceScalingFactor;
+			accelerationY[circle2] += (positionY[circle2] - positionY[circle1]) * norm * halfForceScalingFactor;
+		}
+	}
+
+	// mirrors PackedCreatures.updateCircle lane by lane, both branches are computed and blended by masks, the lanes outside the mask keep their state
+	private void updateCircles(int firstCreature, int slot, int circle, double gravityY, double airFriction, double groundDamping) {
+		int offset = slot * laneCount;
+		VectorMask<Double> mask = DoubleVector.fromArray(species, active, firstCreature).compare(VectorOperators.NE, 0d).and(DoubleVector.fromArray(species, circleCount, firstCreature).compare(VectorOperators.GT, (double) circle));
+		DoubleVector oldPositionX = DoubleVector.fromArray(species, this.positionX, offset);
+		DoubleVector oldPositionY = DoubleVector.fromArray(species, this.positionY, offset);
+		DoubleVector oldVelocityX = DoubleVector.fromArray(species, this.velocityX, offset);
+		DoubleVector oldVelocityY = DoubleVector.fromArray(species, this.velocityY, offset);
+		DoubleVector accelerationX = DoubleVector.fromArray(species, this.accelerationX, offset);
+		DoubleVector accelerationY = DoubleVector.fromArray(species, this.accelerationY, offset);
+		DoubleVector radius = DoubleVector.fromArray(species, this.radius, offset);
+
+		// the circles rolling on the ground only take the y-acceleration if it lifts them up, and lose a part of their x-velocity to friction
+		VectorMask<Double> wasOnGround = oldPositionY.add(radius).compare(VectorOperators.EQ, 0d).and(oldVelocityY.compare(VectorOperators.EQ, 0d));
+		DoubleVector velocityX = oldVelocityX.add(accelerationX);
+		velocityX = velocityX.blend(velocityX.mul(DoubleVector.broadcast(species, 1d).sub(DoubleVector.fromArray(species, frictionPercentage, offset))), wasOnGround);
+		DoubleVector velocityY = oldVelocityY.blend(oldVelocityY.add(accelerationY), wasOnGround.not().or(accelerationY.compare(VectorOperators.LT, 0d)));
+
+		// apply air friction to the velocity
+		velocityX = velocityX.mul(airFriction);
+		velocityY = velocityY.mul(airFriction);
+
+		// the circles that would collide with the ground move until they collide with it and then move the rest of the velocity back up
+		VectorMask<Double> colliding = oldPositionY.add(velocityY).add(radius).compare(VectorOperators.GT, 0d);
+		DoubleVector scale = radius.neg().sub(oldPositionY).div(velocityY);
+		DoubleVector velocity1X = velocityX.mul(scale);
+		DoubleVector velocity1Y = velocityY.mul(scale);
+		DoubleVector collidingPositionX = oldPositionX.add(velocity1X);
+		DoubleVector collidingPositionY = oldPositionY.add(velocity1Y);
+		DoubleVector collidingVelocityY = velocityY.neg().mul(groundDamping);
+
+		DoubleVector length = velocityX.mul(velocityX).add(collidingVelocityY.mul(collidingVelocityY)).sqrt();
+		DoubleVector norm = DoubleVector.broadcast(species, 1d).div(length);
+		DoubleVector restLength = length.sub(velocity1X.mul(velocity1X).add(velocity1Y.mul(velocity1Y)).sqrt());
+		DoubleVector velocity2X = velocityX.mul(norm).mul(restLength);
+		DoubleVector velocity2Y = collidingVelocityY.mul(norm).mul(restLength);
+
+		// the circles whose rest y-velocity is less than or equal to the gravity-y come to rest
+		VectorMask<Double> resting = velocity2Y.abs().compare(VectorOperators.LE, gravityY);
+		velocity2Y = velocity2Y.blend(0d, resting);
+		collidingVelocityY = collidingVelocityY.blend(0d, resting);
+		collidingPositionX = collidingPositionX.add(velocity2X);
+		collidingPositionY = collidingPositionY.add(velocity2Y);
+
+		DoubleVector positionX = oldPositionX.add(velocityX).blend(collidingPositionX, colliding);
+		DoubleVector positionY = oldPositionY.add(velocityY).blend(collidingPositionY, colliding);
+		velocityY = velocityY.blend(collidingVelocityY, colliding);
+
+		oldPositionX.blend(positionX, mask).intoArray(this.positionX, offset);
+		oldPositionY.blend(positionY, mask).intoArray(this.positionY, offset);
+		oldVelocityX.blend(velocityX, mask).intoArray(this.velocityX, offset);
+		oldVelocityY.blend(velocityY, mask).intoArray(this.velocityY, offset);
+
+		// reset the acceleration the same way Vector2d.scale(0d) does
+		accelerationX.blend(accelerationX.mul(0d), mask).intoArray(this.accelerationX, offset);
+		accelerationY.blend(accelerationY.mul(0d), mask).intoArray(this.accelerationY, offset);
+
+		// count the change of the grounded circles and add the positions to the sums of the creatures
+		VectorMask<Double> onGround = positionY.add(radius).compare(VectorOperators.EQ, 0d).and(velocityY.compare(VectorOperators.EQ, 0d));
+		DoubleVector zero = DoubleVector.zero(species);
+		DoubleVector groundedCircleCount = DoubleVector.fromArray(species, this.groundedCircleCount, firstCreature);
+		groundedCircleCount.blend(groundedCircleCount.add(zero.blend(1d, onGround).sub(zero.blend(1d, wasOnGround))), mask).intoArray(this.groundedCircleCount, firstCreature);
+		DoubleVector positionXSum = DoubleVector.fromArray(species, this.positionXSum, firstCreature);
+		positionXSum.blend(positionXSum.add(positionX), mask).intoArray(this.positionXSum, firstCreature);
+	}
+
+	// the creature is given in the order the creatures were added
+	public boolean getPruned(int creature) {
+		return pruned[lane[creature]];
+	}
+
+	public double getFitness(int creature, double onGroundFitness) {
+		return getLaneFitness(lane[creature], onGroundFitness);
+	}
+
+	private double getLaneFitness(int creature, double onGroundFitness) {
+		if (groundedCircleCount[creature] == circleCount[creature])
+			return onGroundFitness;
+		else
+			return positionXSum[creature] / circleCount[creature];
+	}
+
+	public int getCreatureCount() {
+		return genomes.size();
+	}
+}
@@ -0,0 +1,56 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// simulates with the vector api, the fitness is bit-identical to the one of the batch simulation engine
+public class VectorSimulationEngine implements SimulationEngine {
+
+	private static final String vectorModuleName = "jdk.incubator.vector";
+
+	// every thread lays out its slice of the population in its own vector creatures
+	private final ThreadLocal<VectorCreatures> vectorCreatures;
+	private final PhysicsParameters physicsParameters;
+	// cuts off hopeless creatures early, null if every creature is simulated to the end
+	private final Pruning pruning;
+	private final LongAdder creatureStepCount;
+
+	public VectorSimulationEngine(PhysicsParameters physicsParameters, Pruning pruning) {
+		this.physicsParameters = physicsParameters;
+		this.pruning = pruning;
+		creatureStepCount = new LongAdder();
+		vectorCreatures = ThreadLocal.withInitial(VectorCreatures::new);
+	}
+
+	// the incubator module is only there if the jvm was started with --add-modules jdk.incubator.vector, check this before creating the engine
+	public static boolean isSupported() {
+		return ModuleLayer.boot().findModule(vectorModuleName).isPresent();
+	}
+
+	@Override
+	public void simulate(Simulator simulator, int cycleCount) {
+		simulate(new Simulator[]{simulator}, 0, 1, cycleCount);
+	}
+
+	@Override
+	public void simulate(Simulator[] simulators, int from, int to, int cycleCount) {
+		VectorCreatures vectorCreatures = this.vectorCreatures.get();
+		vectorCreatures.clear();
+		for (int i = from; i < to; i++)
+			vectorCreatures.add(simulators[i].getGenome());
+
+		creatureStepCount.add(vectorCreatures.simulate(cycleCount, physicsParameters, pruning));
+
+		// report the fitness of every creature back to its simulator
+		double onGroundFitness = physicsParameters.getOnGroundFitness();
+		for (int i = from; i < to; i++)
+			simulators[i].setFitness(vectorCreatures.getFitness(i - from, onGroundFitness), vectorCreatures.getPruned(i - from));
+	}
+
+	@Override
+	public long getCreatureStepCount() {
+		return creatureStepCount.sum();
+	}
+}
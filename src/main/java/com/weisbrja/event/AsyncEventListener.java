@@ -0,0 +1,108 @@
+package com.weisbrja.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// hands the events over to an executor through a bounded queue, at most one task drains the queue at a time, so the listener sees the events in order
+public class AsyncEventListener<T extends Event> implements EventListener<T> {
+
+	private final Class<T> eventClass;
+	private final EventListener<T> eventListener;
+	private final Executor executor;
+	private final BlockingQueue<QueuedEvent<T>> queue;
+	// a coalescing listener replaces the queued events by newer ones instead of waiting for the queue
+	private final boolean coalescing;
+	private final AtomicBoolean draining;
+	// the thread that drains the queue right now, it must not wait for room in the queue, since only it makes room
+	private volatile Thread drainingThread;
+
+	private final LongAdder coalescedEventCount;
+	private final AtomicInteger maxQueueDepth;
+	// only written by the task that drains the queue
+	private volatile long deliveredEventCount;
+	private volatile long latencySum;
+	private volatile long maxLatency;
+
+	AsyncEventListener(Class<T> eventClass, EventListener<T> eventListener, Executor executor, int queueCapacity, boolean coalescing) {
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("the queue capacity must be positive");
+
+		this.eventClass = eventClass;
+		this.eventListener = eventListener;
+		this.executor = executor;
+		this.coalescing = coalescing;
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		draining = new AtomicBoolean();
+		coalescedEventCount = new LongAdder();
+		maxQueueDepth = new AtomicInteger();
+	}
+
+	@Override
+	public void handle(T event) {
+		QueuedEvent<T> queuedEvent = new QueuedEvent<>(event, System.nanoTime());
+		if (coalescing) {
+			while (!queue.offer(queuedEvent))
+				if (queue.poll() != null)
+					coalescedEventCount.increment();
+		} else if (!queue.offer(queuedEvent)) {
+			// a listener that emits an event it listens for itself would wait forever
+			if (Thread.currentThread() == drainingThread)
+				throw new IllegalStateException("the queue of " + eventClass.getSimpleName() + " is full and would only be drained by the emitting thread");
+			try {
+				queue.put(queuedEvent);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		int queueDepth = queue.size();
+		if (queueDepth > maxQueueDepth.get())
+			maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+
+		if (draining.compareAndSet(false, true))
+			executor.execute(this::drain);
+	}
+
+	private void drain() {
+		drainingThread = Thread.currentThread();
+		try {
+			QueuedEvent<T> queuedEvent;
+			while ((queuedEvent = queue.poll()) != null) {
+				long latency = System.nanoTime() - queuedEvent.emitTime;
+				latencySum += latency;
+				if (latency > maxLatency)
+					maxLatency = latency;
+				deliveredEventCount++;
+				eventListener.handle(queuedEvent.event);
+			}
+		} finally {
+			// a failing listener must not leave the flag set, the queued events would never be handed over again
+			drainingThread = null;
+			// an event queued after the last poll but before the flag is cleared would be left behind, so look again
+			draining.set(false);
+			if (!queue.isEmpty() && draining.compareAndSet(false, true))
+				executor.execute(this::drain);
+		}
+	}
+
+	public DispatchStatistics getDispatchStatistics() {
+		long deliveredEventCount = this.deliveredEventCount;
+		return new DispatchStatistics(eventClass, coalescing, deliveredEventCount, coalescedEventCount.sum(), deliveredEventCount > 0L ? latencySum / deliveredEventCount : 0L, maxLatency, queue.size(), maxQueueDepth.get());
+	}
+
+	private static class QueuedEvent<T> {
+
+		private final T event;
+		private final long emitTime;
+
+		private QueuedEvent(T event, long emitTime) {
+			this.event = event;
+			this.emitTime = emitTime;
+		}
+	}
+}
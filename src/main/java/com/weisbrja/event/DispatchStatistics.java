@@ -0,0 +1,65 @@
+package com.weisbrja.event;
+
+// a snapshot of how fast an async listener keeps up with its events, the latencies reach from emitting an event to handling it
+public class DispatchStatistics {
+
+	private final Class<?> eventClass;
+	private final boolean coalescing;
+	private final long deliveredEventCount;
+	private final long coalescedEventCount;
+	private final long meanLatency;
+	private final long maxLatency;
+	private final int queueDepth;
+	private final int maxQueueDepth;
+
+	public DispatchStatistics(Class<?> eventClass, boolean coalescing, long deliveredEventCount, long coalescedEventCount, long meanLatency, long maxLatency, int queueDepth, int maxQueueDepth) {
+		this.eventClass = eventClass;
+		this.coalescing = coalescing;
+		this.deliveredEventCount = deliveredEventCount;
+		this.coalescedEventCount = coalescedEventCount;
+		this.meanLatency = meanLatency;
+		this.maxLatency = maxLatency;
+		this.queueDepth = queueDepth;
+		this.maxQueueDepth = maxQueueDepth;
+	}
+
+	public Class<?> getEventClass() {
+		return eventClass;
+	}
+
+	public boolean getCoalescing() {
+		return coalescing;
+	}
+
+	public long getDeliveredEventCount() {
+		return deliveredEventCount;
+	}
+
+	// the events that were replaced by newer ones before the listener handled them
+	public long getCoalescedEventCount() {
+		return coalescedEventCount;
+	}
+
+	// in nanoseconds
+	public long getMeanLatency() {
+		return meanLatency;
+	}
+
+	// in nanoseconds
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	@Override
+	public String toString() {
+		return eventClass.getSimpleName() + (coalescing ? " (latest)" : "") + ": delivered " + deliveredEventCount + ", coalesced " + coalescedEventCount + ", mean latency " + meanLatency / 1000L + " us, max latency " + maxLatency / 1000L + " us, queue depth " + queueDepth + " (max " + maxQueueDepth + ")";
+	}
+}
@@ -1,29 +1,64 @@
 package com.weisbrja.event;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
+// the events are emitted from the simulation threads, the population and the JavaFX thread, so every method may be called from any thread
 public class EventBus {
 
-	private final Map<Class, List<EventListener>> eventListenerMap;
+	private static final EventListener[] noEventListeners = new EventListener[0];
+
+	// the listener arrays are replaced instead of changed, so that emitting needs neither a lock nor an iterator
+	private final Map<Class<?>, EventListener[]> eventListenerMap;
+	private final List<AsyncEventListener<?>> asyncEventListeners;
 
 	public EventBus() {
-		eventListenerMap = new HashMap<>();
+		eventListenerMap = new ConcurrentHashMap<>();
+		asyncEventListeners = new CopyOnWriteArrayList<>();
 	}
 
+	// the listener is called on the emitting thread
 	public <T extends Event> void listenFor(Class<T> eventClass, EventListener<T> eventListener) {
-		if (!eventListenerMap.containsKey(eventClass))
-			eventListenerMap.put(eventClass, new LinkedList<>());
+		eventListenerMap.merge(eventClass, new EventListener[]{eventListener}, (eventListeners, added) -> {
+			EventListener[] newEventListeners = Arrays.copyOf(eventListeners, eventListeners.length + 1);
+			newEventListeners[eventListeners.length] = added[0];
+			return newEventListeners;
+		});
+	}
 
-		eventListenerMap.get(eventClass).add(eventListener);
+	// the listener is called on the executor, the emitting thread waits while the queue of the listener is full
+	// an executor that runs the listener on a thread which emits the same events as well can deadlock, emitting into the full queue from inside the listener throws instead
+	public <T extends Event> AsyncEventListener<T> listenForAsync(Class<T> eventClass, EventListener<T> eventListener, Executor executor, int queueCapacity) {
+		AsyncEventListener<T> asyncEventListener = new AsyncEventListener<>(eventClass, eventListener, executor, queueCapacity, false);
+		asyncEventListeners.add(asyncEventListener);
+		listenFor(eventClass, asyncEventListener);
+		return asyncEventListener;
 	}
 
-	public <T extends Event> void emit(T event) {
-		Class eventClass = event.getClass();
+	// the listener is called on the executor with the latest event only, the events it has not handled yet are replaced by newer ones
+	public <T extends Event> AsyncEventListener<T> listenForLatest(Class<T> eventClass, EventListener<T> eventListener, Executor executor) {
+		AsyncEventListener<T> asyncEventListener = new AsyncEventListener<>(eventClass, eventListener, executor, 1, true);
+		asyncEventListeners.add(asyncEventListener);
+		listenFor(eventClass, asyncEventListener);
+		return asyncEventListener;
+	}
 
-		for (EventListener eventListener : eventListenerMap.get(eventClass))
+	@SuppressWarnings("unchecked")
+	public <T extends Event> void emit(T event) {
+		// events nobody listens for are dropped
+		for (EventListener eventListener : eventListenerMap.getOrDefault(event.getClass(), noEventListeners))
 			eventListener.handle(event);
 	}
+
+	public List<DispatchStatistics> getDispatchStatistics() {
+		List<DispatchStatistics> dispatchStatistics = new ArrayList<>();
+		for (AsyncEventListener<?> asyncEventListener : asyncEventListeners)
+			dispatchStatistics.add(asyncEventListener.getDispatchStatistics());
+		return dispatchStatistics;
+	}
 }
@@ -0,0 +1,47 @@
+package com.weisbrja.population;
+
+import com.weisbrja.RandomNumberGenerator;
+
+// fitness proportionate selection in constant time per parent
+public class AliasParentSampler implements ParentSampler {
+
+	private final AliasTable aliasTable;
+	private double[] weights;
+
+	public AliasParentSampler() {
+		aliasTable = new AliasTable();
+		weights = new double[0];
+	}
+
+	static void calculateWeights(double[] fitnesses, double[] weights) {
+		// offset every fitness by the worst fitness so that the worst creature is never chosen
+		double worstFitness = Double.POSITIVE_INFINITY;
+		for (double fitness : fitnesses)
+			worstFitness = Math.min(worstFitness, fitness);
+
+		double offsetSum = 0d;
+		for (int i = 0; i < fitnesses.length; i++) {
+			weights[i] = fitnesses[i] - worstFitness;
+			offsetSum += weights[i];
+		}
+
+		// choose every creature with the same probability if they are all equally fit
+		if (!(offsetSum > 0d))
+			for (int i = 0; i < fitnesses.length; i++)
+				weights[i] = 1d;
+	}
+
+	@Override
+	public void prepare(double[] fitnesses) {
+		if (fitnesses.length > weights.length)
+			weights = new double[fitnesses.length];
+
+		calculateWeights(fitnesses, weights);
+		aliasTable.build(weights, fitnesses.length);
+	}
+
+	@Override
+	public int sample(RandomNumberGenerator randomNumberGenerator) {
+		return aliasTable.sample(randomNumberGenerator);
+	}
+}
@@ -0,0 +1,74 @@
+package com.weisbrja.population;
+
+import com.weisbrja.RandomNumberGenerator;
+
+// Vose's alias method, built in linear time and sampled in constant time
+public class AliasTable {
+
+	private int size;
+	private double[] probabilities;
+	private int[] aliases;
+
+	// work lists used while building, kept to avoid allocating every generation
+	private double[] scaledWeights;
+	private int[] smallIndices;
+	private int[] largeIndices;
+
+	public AliasTable() {
+		probabilities = new double[0];
+	}
+
+	public void build(double[] weights, int size) {
+		this.size = size;
+		if (size > probabilities.length) {
+			probabilities = new double[size];
+			aliases = new int[size];
+			scaledWeights = new double[size];
+			smallIndices = new int[size];
+			largeIndices = new int[size];
+		}
+
+		double sum = 0d;
+		for (int i = 0; i < size; i++)
+			sum += weights[i];
+
+		// scale the weights so that their mean is one and split them into small and large ones
+		int smallCount = 0;
+		int largeCount = 0;
+		for (int i = 0; i < size; i++) {
+			scaledWeights[i] = weights[i] * size / sum;
+			if (scaledWeights[i] < 1d)
+				smallIndices[smallCount++] = i;
+			else
+				largeIndices[largeCount++] = i;
+		}
+
+		// fill up every small column with the rest of a large one
+		while (smallCount > 0 && largeCount > 0) {
+			int small = smallIndices[--smallCount];
+			int large = largeIndices[--largeCount];
+
+			probabilities[small] = scaledWeights[small];
+			aliases[small] = large;
+
+			scaledWeights[large] = scaledWeights[large] + scaledWeights[small] - 1d;
+			if (scaledWeights[large] < 1d)
+				smallIndices[smallCount++] = large;
+			else
+				largeIndices[largeCount++] = large;
+		}
+
+		// the remaining columns are full, apart from rounding errors
+		while (largeCount > 0)
+			probabilities[largeIndices[--largeCount]] = 1d;
+		while (smallCount > 0)
+			probabilities[smallIndices[--smallCount]] = 1d;
+	}
+
+	public int sample(RandomNumberGenerator randomNumberGenerator) {
+		// use the integer part of one random number as the column and the fractional part as the coin
+		double randomNumber = randomNumberGenerator.nextDouble() * size;
+		int column = Math.min((int) randomNumber, size - 1);
+		return randomNumber - column < probabilities[column] ? column : aliases[column];
+	}
+}
@@ -0,0 +1,9 @@
+package com.weisbrja.population;
+
+import com.weisbrja.simulation.Simulator;
+
+// gets a chunk of simulators ready right before the scheduler simulates it, e.g. breeds their creatures while other chunks are still simulated
+public interface ChunkPreparer {
+
+	void prepare(Simulator[] simulators, int from, int to);
+}
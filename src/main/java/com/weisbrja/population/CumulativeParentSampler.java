@@ -0,0 +1,40 @@
+package com.weisbrja.population;
+
+import com.weisbrja.RandomNumberGenerator;
+
+// fitness proportionate selection with a binary search over the cumulative probabilities for every parent
+public class CumulativeParentSampler implements ParentSampler {
+
+	private double[] probabilities;
+
+	public CumulativeParentSampler() {
+		probabilities = new double[0];
+	}
+
+	@Override
+	public void prepare(double[] fitnesses) {
+		if (fitnesses.length != probabilities.length)
+			probabilities = new double[fitnesses.length];
+
+		AliasParentSampler.calculateWeights(fitnesses, probabilities);
+		for (int i = 1; i < probabilities.length; i++)
+			probabilities[i] += probabilities[i - 1];
+	}
+
+	@Override
+	public int sample(RandomNumberGenerator randomNumberGenerator) {
+		double randomNumber = randomNumberGenerator.nextDouble() * probabilities[probabilities.length - 1];
+
+		// find the index of the smallest cumulative probability larger than the random number
+		int lowestIndex = 0;
+		int highestIndex = probabilities.length - 1;
+		while (lowestIndex < highestIndex) {
+			int index = lowestIndex + (highestIndex - lowestIndex) / 2;
+			if (probabilities[index] <= randomNumber)
+				lowestIndex = index + 1;
+			else
+				highestIndex = index;
+		}
+		return lowestIndex;
+	}
+}
@@ -0,0 +1,50 @@
+package com.weisbrja.population;
+
+public class EvaluationStatistics {
+
+	private final int simulatorCount;
+	private final long wallTime;
+	private final double[] workerUtilisations;
+	// null if every simulator was simulated
+	private final Throwable failure;
+
+	public EvaluationStatistics(int simulatorCount, long wallTime, double[] workerUtilisations) {
+		this.simulatorCount = simulatorCount;
+		this.wallTime = wallTime;
+		this.workerUtilisations = workerUtilisations;
+		failure = null;
+	}
+
+	// the evaluation was given up, the fitness of the simulators is incomplete
+	public EvaluationStatistics(int simulatorCount, long wallTime, Throwable failure) {
+		this.simulatorCount = simulatorCount;
+		this.wallTime = wallTime;
+		this.failure = failure;
+		workerUtilisations = new double[0];
+	}
+
+	public int getSimulatorCount() {
+		return simulatorCount;
+	}
+
+	// the wall time of the evaluation in nanoseconds
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	// the share of the wall time every worker spent simulating
+	public double[] getWorkerUtilisations() {
+		return workerUtilisations;
+	}
+
+	public double getMeanWorkerUtilisation() {
+		double sum = 0d;
+		for (double workerUtilisation : workerUtilisations)
+			sum += workerUtilisation;
+		return workerUtilisations.length > 0 ? sum / workerUtilisations.length : 0d;
+	}
+
+	public Throwable getFailure() {
+		return failure;
+	}
+}
@@ -0,0 +1,61 @@
+package com.weisbrja.population;
+
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+// lets several populations share one scheduler, the waiting generations are started in the order they were requested
+public class FairShareGenerationScheduler implements GenerationScheduler {
+
+	private final GenerationScheduler generationScheduler;
+	private final int maxRunningGenerationCount;
+	private final Queue<Runnable> waitingGenerations;
+	private int runningGenerationCount;
+
+	public FairShareGenerationScheduler(GenerationScheduler generationScheduler, int maxRunningGenerationCount) {
+		if (maxRunningGenerationCount < 1)
+			throw new IllegalArgumentException("at least one generation must be able to run");
+
+		this.generationScheduler = generationScheduler;
+		this.maxRunningGenerationCount = maxRunningGenerationCount;
+		waitingGenerations = new ArrayDeque<>();
+	}
+
+	@Override
+	public void evaluate(Simulator[] simulators, int from, int cycleCount, SimulationEngine simulationEngine, ChunkPreparer chunkPreparer, Consumer<EvaluationStatistics> doneListener) {
+		Runnable generation = () -> generationScheduler.evaluate(simulators, from, cycleCount, simulationEngine, chunkPreparer, evaluationStatistics -> {
+			// start the next waiting generation before handing over, so that a population requesting its next generation queues up behind the others
+			startNextGeneration();
+			doneListener.accept(evaluationStatistics);
+		});
+
+		synchronized (this) {
+			if (runningGenerationCount == maxRunningGenerationCount) {
+				waitingGenerations.add(generation);
+				return;
+			}
+			runningGenerationCount++;
+		}
+		generation.run();
+	}
+
+	@Override
+	public void close() {
+		generationScheduler.close();
+	}
+
+	private void startNextGeneration() {
+		Runnable generation;
+		synchronized (this) {
+			generation = waitingGenerations.poll();
+			if (generation == null) {
+				runningGenerationCount--;
+				return;
+			}
+		}
+		generation.run();
+	}
+}
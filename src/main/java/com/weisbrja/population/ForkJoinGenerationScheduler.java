@@ -0,0 +1,109 @@
+package com.weisbrja.population;
+
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class ForkJoinGenerationScheduler implements GenerationScheduler {
+
+	// chunks smaller than this are never split, so that batching engines still get a useful slice
+	private static final int minChunkSize = 16;
+	// split a chunk this many times per worker before relying on the queue length alone
+	private static final int chunksPerWorker = 4;
+
+	private final ForkJoinPool forkJoinPool;
+
+	public ForkJoinGenerationScheduler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public ForkJoinGenerationScheduler(int parallelism) {
+		forkJoinPool = new ForkJoinPool(parallelism);
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	@Override
+	public void evaluate(Simulator[] simulators, int from, int cycleCount, SimulationEngine simulationEngine, ChunkPreparer chunkPreparer, Consumer<EvaluationStatistics> doneListener) {
+		long startTime = System.nanoTime();
+		int simulatorCount = simulators.length - from;
+		int maxChunkSize = Math.max(minChunkSize, simulatorCount / (forkJoinPool.getParallelism() * chunksPerWorker));
+		Map<Thread, LongAdder> busyTimes = new ConcurrentHashMap<>();
+
+		// run the root task inside the pool so that the generation completes with a single join
+		forkJoinPool.execute(() -> {
+			EvaluationStatistics evaluationStatistics;
+			try {
+				new SimulateTask(simulators, from, simulators.length, cycleCount, simulationEngine, chunkPreparer, maxChunkSize, busyTimes).invoke();
+
+				long wallTime = System.nanoTime() - startTime;
+				// workers that never got a chunk count as idle
+				double[] workerUtilisations = new double[Math.max(forkJoinPool.getParallelism(), busyTimes.size())];
+				int i = 0;
+				for (LongAdder busyTime : busyTimes.values())
+					workerUtilisations[i++] = busyTime.doubleValue() / wallTime;
+				evaluationStatistics = new EvaluationStatistics(simulatorCount, wallTime, workerUtilisations);
+			} catch (RuntimeException | Error e) {
+				// a failed chunk fails the whole generation, otherwise the population would wait for it forever
+				evaluationStatistics = new EvaluationStatistics(simulatorCount, System.nanoTime() - startTime, e);
+			}
+			doneListener.accept(evaluationStatistics);
+		});
+	}
+
+	@Override
+	public void close() {
+		forkJoinPool.shutdown();
+	}
+
+	private static class SimulateTask extends RecursiveAction {
+
+		private final Simulator[] simulators;
+		private final int from;
+		private final int to;
+		private final int cycleCount;
+		private final SimulationEngine simulationEngine;
+		private final ChunkPreparer chunkPreparer;
+		private final int maxChunkSize;
+		private final Map<Thread, LongAdder> busyTimes;
+
+		private SimulateTask(Simulator[] simulators, int from, int to, int cycleCount, SimulationEngine simulationEngine, ChunkPreparer chunkPreparer, int maxChunkSize, Map<Thread, LongAdder> busyTimes) {
+			this.simulators = simulators;
+			this.from = from;
+			this.to = to;
+			this.cycleCount = cycleCount;
+			this.simulationEngine = simulationEngine;
+			this.chunkPreparer = chunkPreparer;
+			this.maxChunkSize = maxChunkSize;
+			this.busyTimes = busyTimes;
+		}
+
+		@Override
+		protected void compute() {
+			int size = to - from;
+
+			// keep splitting large chunks, and small ones too while idle workers have nothing to steal
+			if (size > minChunkSize && (size > maxChunkSize || getSurplusQueuedTaskCount() < 2)) {
+				int middle = from + size / 2;
+				invokeAll(
+						new SimulateTask(simulators, from, middle, cycleCount, simulationEngine, chunkPreparer, maxChunkSize, busyTimes),
+						new SimulateTask(simulators, middle, to, cycleCount, simulationEngine, chunkPreparer, maxChunkSize, busyTimes)
+				);
+			} else {
+				long startTime = System.nanoTime();
+				if (chunkPreparer != null)
+					chunkPreparer.prepare(simulators, from, to);
+				simulationEngine.simulate(simulators, from, to, cycleCount);
+				busyTimes.computeIfAbsent(Thread.currentThread(), thread -> new LongAdder()).add(System.nanoTime() - startTime);
+			}
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.weisbrja.population;
+
+import com.weisbrja.event.Event;
+
+public class GenerationEvaluatedEvent implements Event {
+
+	private final EvaluationStatistics evaluationStatistics;
+
+	public GenerationEvaluatedEvent(EvaluationStatistics evaluationStatistics) {
+		this.evaluationStatistics = evaluationStatistics;
+	}
+
+	public EvaluationStatistics getEvaluationStatistics() {
+		return evaluationStatistics;
+	}
+}
@@ -0,0 +1,24 @@
+package com.weisbrja.population;
+
+import com.weisbrja.event.Event;
+
+// the population stopped, because a generation could not be evaluated
+public class GenerationFailedEvent implements Event {
+
+	// counted like the generations of the generation done event
+	private final int generationCount;
+	private final Throwable failure;
+
+	public GenerationFailedEvent(int generationCount, Throwable failure) {
+		this.generationCount = generationCount;
+		this.failure = failure;
+	}
+
+	public int getGenerationCount() {
+		return generationCount;
+	}
+
+	public Throwable getFailure() {
+		return failure;
+	}
+}
@@ -0,0 +1,21 @@
+package com.weisbrja.population;
+
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.function.Consumer;
+
+public interface GenerationScheduler {
+
+	// simulate the simulators from the given index on without blocking and report to the listener once all of them are done, or once the evaluation failed
+	// the chunk preparer is called on every chunk right before it is simulated, it is null if the simulators are ready
+	void evaluate(Simulator[] simulators, int from, int cycleCount, SimulationEngine simulationEngine, ChunkPreparer chunkPreparer, Consumer<EvaluationStatistics> doneListener);
+
+	default void evaluate(Simulator[] simulators, int from, int cycleCount, SimulationEngine simulationEngine, Consumer<EvaluationStatistics> doneListener) {
+		evaluate(simulators, from, cycleCount, simulationEngine, null, doneListener);
+	}
+
+	// release the threads and connections of the scheduler once no generation is evaluated anymore
+	default void close() {
+	}
+}
@@ -0,0 +1,141 @@
+package com.weisbrja.population;
+
+import java.util.Arrays;
+
+// fitness statistics of a generation in linear time, without sorting the simulators
+public class GenerationStatistics {
+
+	private final double[] percentiles;
+	private final double[] percentileFitnesses;
+	private double[] selectedFitnesses;
+
+	private int bestIndex;
+	private int medianIndex;
+	private double bestFitness;
+	private double worstFitness;
+	private double fitnessSum;
+	private double medianFitness;
+
+	public GenerationStatistics(double... percentiles) {
+		this.percentiles = percentiles.clone();
+		percentileFitnesses = new double[percentiles.length];
+		selectedFitnesses = new double[0];
+	}
+
+	public void calculate(double[] fitnesses) {
+		int size = fitnesses.length;
+
+		// find the best and the worst fitness and the sum of all fitness values in a single pass
+		bestIndex = 0;
+		worstFitness = fitnesses[0];
+		fitnessSum = 0d;
+		for (int i = 0; i < size; i++) {
+			if (Double.compare(fitnesses[i], fitnesses[bestIndex]) > 0)
+				bestIndex = i;
+			if (Double.compare(fitnesses[i], worstFitness) < 0)
+				worstFitness = fitnesses[i];
+			fitnessSum += fitnesses[i];
+		}
+		bestFitness = fitnesses[bestIndex];
+
+		// select on a copy, so that the fitness values stay in the order of their simulators
+		if (selectedFitnesses.length != size)
+			selectedFitnesses = new double[size];
+		System.arraycopy(fitnesses, 0, selectedFitnesses, 0, size);
+
+		// the median is the element in the middle when going from the best to the worst fitness
+		medianFitness = select(selectedFitnesses, size - 1 - size / 2);
+		medianIndex = 0;
+		while (Double.compare(fitnesses[medianIndex], medianFitness) != 0)
+			medianIndex++;
+
+		for (int i = 0; i < percentiles.length; i++)
+			percentileFitnesses[i] = select(selectedFitnesses, (int) (percentiles[i] * (size - 1)));
+	}
+
+	// introselect, a quickselect with a median of three pivot that falls back to sorting the remaining range
+	private static double select(double[] values, int k) {
+		int from = 0;
+		int to = values.length - 1;
+		int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(values.length));
+
+		while (from < to) {
+			if (depthLimit-- == 0) {
+				Arrays.sort(values, from, to + 1);
+				return values[k];
+			}
+
+			int middle = (from + to) >>> 1;
+			if (Double.compare(values[middle], values[from]) < 0)
+				swap(values, from, middle);
+			if (Double.compare(values[to], values[from]) < 0)
+				swap(values, from, to);
+			if (Double.compare(values[to], values[middle]) < 0)
+				swap(values, middle, to);
+			double pivot = values[middle];
+
+			// partition the range, equal values end up on both sides so that many equal fitness values stay balanced
+			int i = from;
+			int j = to;
+			while (i <= j) {
+				while (Double.compare(values[i], pivot) < 0)
+					i++;
+				while (Double.compare(values[j], pivot) > 0)
+					j--;
+				if (i <= j)
+					swap(values, i++, j--);
+			}
+
+			if (k <= j)
+				to = j;
+			else if (k >= i)
+				from = i;
+			else
+				return values[k];
+		}
+		return values[k];
+	}
+
+	private static void swap(double[] values, int i, int j) {
+		double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	public int getBestIndex() {
+		return bestIndex;
+	}
+
+	public int getMedianIndex() {
+		return medianIndex;
+	}
+
+	public double getBestFitness() {
+		return bestFitness;
+	}
+
+	public double getWorstFitness() {
+		return worstFitness;
+	}
+
+	public double getFitnessSum() {
+		return fitnessSum;
+	}
+
+	public double getMedianFitness() {
+		return medianFitness;
+	}
+
+	public double[] getPercentiles() {
+		return percentiles.clone();
+	}
+
+	public double[] getPercentileFitnesses() {
+		return percentileFitnesses.clone();
+	}
+
+	// select any other percentile of the last calculated generation
+	public double getPercentileFitness(double percentile) {
+		return select(selectedFitnesses, (int) (percentile * (selectedFitnesses.length - 1)));
+	}
+}
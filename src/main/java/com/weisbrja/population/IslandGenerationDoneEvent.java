@@ -0,0 +1,24 @@
+package com.weisbrja.population;
+
+import com.weisbrja.event.Event;
+import com.weisbrja.simulation.GenerationDoneEvent;
+
+// a generation of a single island of an island model is done
+public class IslandGenerationDoneEvent implements Event {
+
+	private final int island;
+	private final GenerationDoneEvent generationDoneEvent;
+
+	public IslandGenerationDoneEvent(int island, GenerationDoneEvent generationDoneEvent) {
+		this.island = island;
+		this.generationDoneEvent = generationDoneEvent;
+	}
+
+	public int getIsland() {
+		return island;
+	}
+
+	public GenerationDoneEvent getGenerationDoneEvent() {
+		return generationDoneEvent;
+	}
+}
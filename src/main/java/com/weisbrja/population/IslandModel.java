@@ -0,0 +1,223 @@
+package com.weisbrja.population;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.simulation.GenerationDoneEvent;
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.Simulator;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// evolves several populations side by side on their own threads, every few generations the best creatures of every island move on to the next island of a ring
+public class IslandModel {
+
+	// sent to the next island when an island stops, so that it does not wait for migrants that never come
+	private static final Migrant[] noMoreMigrants = new Migrant[0];
+
+	private final EventBus eventBus;
+	private final int migrationInterval;
+	private final int migrantCount;
+	private final Island[] islands;
+	// the generations that not every island is done with yet
+	private final Map<Integer, ModelGeneration> modelGenerations;
+
+	public IslandModel(EventBus eventBus, SimulationConfig config) {
+		this.eventBus = eventBus;
+		migrationInterval = config.getMigrationInterval();
+		migrantCount = config.getMigrantCount();
+		modelGenerations = new ConcurrentHashMap<>();
+
+		// split the creatures and the threads among the islands
+		int islandCount = config.getIslandCount();
+		int threadCount = Math.max(1, config.getThreadCount() / islandCount);
+		RandomNumberGenerator randomNumberGenerator = new RandomNumberGenerator(config.getRandomSeed());
+		islands = new Island[islandCount];
+		for (int i = 0; i < islandCount; i++) {
+			int populationSize = config.getPopulationSize() / islandCount + (i < config.getPopulationSize() % islandCount ? 1 : 0);
+			SimulationConfig islandConfig = config
+					.with("seed", Long.toString(randomNumberGenerator.split(i).nextLong()))
+					.with("population-size", Integer.toString(populationSize))
+					.with("islands", "1");
+			islands[i] = new Island(i, config.getRandomSeed(), islandConfig, threadCount);
+		}
+	}
+
+	public void initialize() {
+		for (Island island : islands)
+			island.population.initialize(island.populationSize);
+	}
+
+	public void startSimulating() {
+		// the islands only wait for each other when they migrate
+		for (Island island : islands)
+			island.population.startSimulating();
+	}
+
+	// stop every island after its current generation, the islands may be at different generations
+	public void stopSimulating() {
+		for (int i = 0; i < islands.length; i++)
+			stopSimulating(i);
+	}
+
+	// the island migrates before its generation is done, so the next island still gets every migrant sent up to here
+	public void stopSimulating(int island) {
+		islands[island].population.stopSimulating();
+		islands[(island + 1) % islands.length].immigrants.add(noMoreMigrants);
+	}
+
+	public int getIslandCount() {
+		return islands.length;
+	}
+
+	// the file the island saves the number of creatures in each species to
+	public String getFilenameSpecies(int island) {
+		return islands[island].filenameSpecies;
+	}
+
+	private void handleIslandGenerationDone(int island, GenerationDoneEvent event) {
+		eventBus.emit(new IslandGenerationDoneEvent(island, event));
+
+		ModelGeneration modelGeneration = modelGenerations.computeIfAbsent(event.getGenerationCount(), generationCount -> new ModelGeneration());
+		IslandModelGenerationDoneEvent modelEvent = null;
+		synchronized (modelGeneration) {
+			modelGeneration.bestDistance = Math.max(modelGeneration.bestDistance, event.getBestDistance());
+			modelGeneration.species.addAll(event.getSpecies());
+			if (++modelGeneration.islandDoneCount == islands.length) {
+				modelEvent = new IslandModelGenerationDoneEvent(event.getGenerationCount(), modelGeneration.bestDistance, modelGeneration.species.size());
+				modelGenerations.remove(event.getGenerationCount());
+			}
+		}
+		if (modelEvent != null)
+			eventBus.emit(modelEvent);
+	}
+
+	private static class ModelGeneration {
+
+		private final Set<String> species = new HashSet<>();
+		private double bestDistance = Double.NEGATIVE_INFINITY;
+		private int islandDoneCount;
+	}
+
+	private static class Migrant {
+
+		private final Genome genome;
+		private final double fitness;
+
+		private Migrant(Genome genome, double fitness) {
+			this.genome = genome;
+			this.fitness = fitness;
+		}
+	}
+
+	private static class ImmigrantBlocker implements ForkJoinPool.ManagedBlocker {
+
+		private final BlockingQueue<Migrant[]> immigrants;
+		private Migrant[] arrivals;
+
+		private ImmigrantBlocker(BlockingQueue<Migrant[]> immigrants) {
+			this.immigrants = immigrants;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			if (arrivals == null)
+				arrivals = immigrants.take();
+			return true;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			if (arrivals == null)
+				arrivals = immigrants.poll();
+			return arrivals != null;
+		}
+	}
+
+	private class Island implements Migration {
+
+		private final int index;
+		private final int populationSize;
+		private final String filenameSpecies;
+		private final Population population;
+		// the migrants sent by the previous island, one array per migration
+		private final BlockingQueue<Migrant[]> immigrants;
+
+		private Island(int index, long randomSeed, SimulationConfig config, int threadCount) {
+			this.index = index;
+			populationSize = config.getPopulationSize();
+			immigrants = new LinkedBlockingQueue<>();
+
+			EventBus islandEventBus = new EventBus();
+			AppContext appContext = new AppContext(islandEventBus, config);
+			String suffix = "_" + randomSeed + "_island" + index + ".csv";
+			filenameSpecies = "species" + suffix;
+			population = new Population(appContext, "fitness" + suffix, "mutation_rate" + suffix, filenameSpecies, appContext.createSimulationEngine(), new ForkJoinGenerationScheduler(threadCount), new AliasParentSampler());
+			population.setMigration(this);
+
+			islandEventBus.listenFor(GenerationDoneEvent.class, event -> handleIslandGenerationDone(index, event));
+			// the other islands would wait for the migrants of this one, so the whole ring is stopped
+			islandEventBus.listenFor(GenerationFailedEvent.class, event -> {
+				stopSimulating();
+				eventBus.emit(event);
+			});
+		}
+
+		@Override
+		public void migrate(int generationCount, Simulator[] simulators) {
+			if ((generationCount + 1) % migrationInterval != 0 || islands.length == 1)
+				return;
+			int migration = (generationCount + 1) / migrationInterval;
+			int count = Math.min(migrantCount, simulators.length / 2);
+
+			// order the creatures from the best to the worst, ties are broken by index so that the order is reproducible
+			Integer[] order = new Integer[simulators.length];
+			for (int i = 0; i < order.length; i++)
+				order[i] = i;
+			Arrays.sort(order, (index1, index2) -> {
+				int comparison = Double.compare(simulators[index2].getFitness(), simulators[index1].getFitness());
+				return comparison != 0 ? comparison : Integer.compare(index1, index2);
+			});
+
+			// the genomes are not changed once they are simulated, so they can be shared
+			Migrant[] emigrants = new Migrant[count];
+			for (int i = 0; i < count; i++)
+				emigrants[i] = new Migrant(simulators[order[i]].getGenome(), simulators[order[i]].getFitness());
+			islands[(index + 1) % islands.length].immigrants.add(emigrants);
+
+			// take in the migrants the previous island sent one migration earlier, so that the arrival does not depend on the timing of the islands
+			if (migration == 1)
+				return;
+			// the island waits on a thread of its scheduler, which the pool replaces meanwhile
+			ImmigrantBlocker immigrantBlocker = new ImmigrantBlocker(immigrants);
+			try {
+				ForkJoinPool.managedBlock(immigrantBlocker);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			Migrant[] arrivals = immigrantBlocker.arrivals;
+
+			// the previous island stopped before it sent these migrants, so the ring stops here as well
+			if (arrivals == noMoreMigrants) {
+				stopSimulating(index);
+				return;
+			}
+
+			// the migrants replace the worst creatures, the best half is always kept
+			for (int i = 0; i < Math.min(arrivals.length, simulators.length / 2); i++) {
+				Simulator simulator = simulators[order[order.length - 1 - i]];
+				simulator.setGenome(arrivals[i].genome);
+				simulator.setFitness(arrivals[i].fitness);
+			}
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.weisbrja.population;
+
+import com.weisbrja.event.Event;
+
+// every island of an island model is done with a generation
+public class IslandModelGenerationDoneEvent implements Event {
+
+	private final int generationCount;
+	private final double bestDistance;
+	private final int speciesCount;
+
+	public IslandModelGenerationDoneEvent(int generationCount, double bestDistance, int speciesCount) {
+		this.generationCount = generationCount;
+		this.bestDistance = bestDistance;
+		this.speciesCount = speciesCount;
+	}
+
+	public int getGenerationCount() {
+		return generationCount;
+	}
+
+	// the best distance over all islands
+	public double getBestDistance() {
+		return bestDistance;
+	}
+
+	// the number of distinct species over all islands
+	public int getSpeciesCount() {
+		return speciesCount;
+	}
+}
@@ -0,0 +1,9 @@
+package com.weisbrja.population;
+
+import com.weisbrja.simulation.Simulator;
+
+// exchanges creatures with other populations after a generation was evaluated and before its parents are selected
+public interface Migration {
+
+	void migrate(int generationCount, Simulator[] simulators);
+}
@@ -0,0 +1,12 @@
+package com.weisbrja.population;
+
+import com.weisbrja.RandomNumberGenerator;
+
+public interface ParentSampler {
+
+	// prepare the sampler once per generation, the fitness values are indexed like the parent creatures
+	void prepare(double[] fitnesses);
+
+	// return the index of a randomly chosen parent creature, may be called from many threads at once
+	int sample(RandomNumberGenerator randomNumberGenerator);
+}
@@ -1,40 +1,54 @@
 package com.weisbrja.population;
 
 import com.weisbrja.AppContext;
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.RandomNumberGenerator;
 import com.weisbrja.data.CSVHelperFitness;
 import com.weisbrja.data.CSVHelperMutationRate;
 import com.weisbrja.data.CSVHelperSpecies;
+import com.weisbrja.engine.Pruning;
+import com.weisbrja.engine.SimulationEngine;
 import com.weisbrja.simulation.*;
 
-import javax.vecmath.Vector2d;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 public class Population {
 
+	private final AppContext appContext;
+	private final SimulationConfig config;
 	private final boolean saveData;
 	private final int simulationCycleCount;
-	private final ExecutorService simulatorExecutorService;
+	private final SimulationEngine simulationEngine;
+	private final GenerationScheduler generationScheduler;
+	private final boolean pipelineReproduction;
+	private final ParentSampler parentSampler;
+	private final GenerationStatistics generationStatistics;
+	private Migration migration;
 	private CSVHelperFitness csvHelperFitness;
 	private CSVHelperMutationRate csvHelperMutationRate;
 	private CSVHelperSpecies csvHelperSpecies;
 	private Simulator[] simulators;
-	private double[] probabilities;
-	private int simulatorsDoneCount;
-	private boolean simulateGraphically;
-	private boolean simulationModeChanged;
+	private Genome[] parentGenomes;
+	private double[] fitnesses;
+	private volatile boolean stopped;
 	private int generationCount;
 	private double bestFitness;
 	private double medianFitness;
 	private double medianMutationRate;
 	private double medianStructuralMutationRate;
 
-	public Population(boolean saveData, String filenameFitness, String filenameMutationRate, String filenameSpecies, int threadCount, int simulationCycleCount) {
-		this.saveData = saveData;
-		this.simulationCycleCount = simulationCycleCount;
+	public Population(AppContext appContext, String filenameFitness, String filenameMutationRate, String filenameSpecies, SimulationEngine simulationEngine, GenerationScheduler generationScheduler, ParentSampler parentSampler) {
+		this.appContext = appContext;
+		this.simulationEngine = simulationEngine;
+		this.generationScheduler = generationScheduler;
+		this.parentSampler = parentSampler;
+
+		config = appContext.getConfig();
+		saveData = config.getSaveData();
+		simulationCycleCount = config.getSimulationCycleCount();
+		pipelineReproduction = config.getPipelineReproduction();
+		generationStatistics = new GenerationStatistics(config.getReportedPercentiles());
 
 		if (saveData) {
 			csvHelperFitness = new CSVHelperFitness(filenameFitness);
@@ -42,51 +56,18 @@ public class Population {
 			csvHelperSpecies = new CSVHelperSpecies(filenameSpecies);
 		}
 
-		simulatorExecutorService = Executors.newFixedThreadPool(threadCount);
-
-		AppContext.getInstance().getEventBus().listenFor(SimulationModeChangedEvent.class, this::handleSimulationModeChanged);
-		AppContext.getInstance().getEventBus().listenFor(SimulatorDoneEvent.class, event -> handleSimulatorDone());
-		AppContext.getInstance().getEventBus().listenFor(AllSimulatorsDoneEvent.class, event -> handleAllSimulatorsDone());
-	}
-
-	private void handleSimulatorDone() {
-		simulatorsDoneCount++;
-		if (simulatorsDoneCount == simulators.length)
-			AppContext.getInstance().getEventBus().emit(new AllSimulatorsDoneEvent());
-		else if (simulateGraphically)
-			simulators[simulatorsDoneCount].startGraphically(simulationCycleCount);
-		else if (simulationModeChanged) {
-			simulationModeChanged = false;
-			// finish all simulators fast
-			List<Future<?>> futures = new ArrayList<>();
-			for (int i = simulatorsDoneCount; i < simulators.length; i++) {
-				Simulator simulator = simulators[i];
-				futures.add(simulatorExecutorService.submit(() -> simulator.start(simulationCycleCount)));
-			}
-			new Thread(() -> {
-				for (Future<?> future : futures)
-					try {
-						future.get();
-					} catch (InterruptedException | ExecutionException e) {
-						e.printStackTrace();
-					}
-				AppContext.getInstance().getEventBus().emit(new AllSimulatorsDoneEvent());
-			}).start();
-		}
-	}
-
-	private void handleSimulationModeChanged(SimulationModeChangedEvent simulationModeChangedEvent) {
-		simulationModeChanged = true;
-		simulateGraphically = simulationModeChangedEvent.getSimulateGraphically();
+		appContext.getEventBus().listenFor(AllSimulatorsDoneEvent.class, event -> handleAllSimulatorsDone());
 	}
 
 	private void handleAllSimulatorsDone() {
-		simulatorsDoneCount = 0;
+		// exchange creatures with other populations before they take part in the selection
+		if (migration != null)
+			migration.migrate(generationCount, simulators);
 
 		// save the number of creatures in each species to a file
 		Map<String, Integer> speciesCountMap = new HashMap<>();
 		for (Simulator simulator : simulators) {
-			String species = simulator.getCreature().getSpecies();
+			String species = simulator.getGenome().getSpecies();
 			if (!speciesCountMap.containsKey(species))
 				speciesCountMap.put(species, 1);
 			else
@@ -96,6 +77,11 @@ public class Population {
 		// do the evolutionary algorithm
 		doSelection();
 
+		// the next generation has to be able to keep up with this one
+		Pruning pruning = appContext.getPruning();
+		if (pruning != null)
+			pruning.setThreshold(generationStatistics.getPercentileFitness(pruning.getPercentile()));
+
 		// save data
 		if (saveData) {
 			csvHelperFitness.printValue(generationCount, bestFitness, medianFitness);
@@ -104,187 +90,225 @@ public class Population {
 				csvHelperSpecies.printValues(generationCount, species, speciesCountMap.get(species));
 		}
 
-		doReproduction();
-
 		generationCount++;
-		AppContext.getInstance().getEventBus().emit(new GenerationDoneEvent(generationCount, bestFitness, medianFitness));
+		appContext.getEventBus().emit(new GenerationDoneEvent(generationCount, bestFitness, medianFitness, generationStatistics.getPercentiles(), generationStatistics.getPercentileFitnesses(), Collections.unmodifiableSet(speciesCountMap.keySet())));
 
-		startSimulating();
+		if (stopped)
+			return;
+
+		if (pipelineReproduction)
+			simulatePipelined();
+		else {
+			doReproduction();
+			startSimulating();
+		}
 	}
 
 	public void initialize(int populationSize) {
-		// initialize the simulators with the given population size
+		// initialize the simulators with the given population size in parallel
 		simulators = new Simulator[populationSize];
-		for (int i = 0; i < populationSize; i++) {
-			simulators[i] = new Simulator();
-			simulators[i].generateRandomCreature();
-		}
+		IntStream.range(0, populationSize).parallel().forEach(i -> {
+			simulators[i] = new Simulator(appContext);
+			simulators[i].generateRandomCreature(getRandomNumberGenerator(i));
+		});
+	}
+
+	private RandomNumberGenerator getRandomNumberGenerator(int creatureIndex) {
+		// every creature of every generation draws from its own stream, so the results do not depend on the thread count
+		return appContext.getRandomNumberGenerator().split(generationCount).split(creatureIndex);
 	}
 
 	public void startSimulating() {
-		if (simulateGraphically)
-			simulators[0].startGraphically(simulationCycleCount);
-		else {
-			List<Future<?>> futures = new ArrayList<>();
-			for (Simulator simulator : simulators)
-				futures.add(simulatorExecutorService.submit(() -> simulator.start(simulationCycleCount)));
-			new Thread(() -> {
-				for (Future<?> future : futures)
-					try {
-						future.get();
-					} catch (InterruptedException | ExecutionException e) {
-						e.printStackTrace();
-					}
-				AppContext.getInstance().getEventBus().emit(new AllSimulatorsDoneEvent());
-			}).start();
-		}
+		simulateHeadless();
 	}
 
-	private void doSelection() {
-		// calculate the fitness of each creature and the sum of all fitness values
-		double sum = 0d;
-		for (Simulator simulator : simulators) {
-			simulator.calculateFitness();
-			sum += simulator.getFitness();
-		}
+	// the genomes of the current generation in an array of their own, the genomes themselves are shared and must not be changed
+	// breeding the next generation gives the simulators new genomes instead of changing the old ones, so the returned ones stay valid
+	public Genome[] getGenomes() {
+		Genome[] genomes = new Genome[simulators.length];
+		for (int i = 0; i < simulators.length; i++)
+			genomes[i] = simulators[i].getGenome();
+		return genomes;
+	}
 
-		// sort the simulators going from the simulator with the best to the simulator with the worst creature
-		Arrays.sort(simulators, (simulator, t1) -> Double.compare(t1.getFitness(), simulator.getFitness()));
+	// a copy of the fitness values of the current generation, indexed like the genomes
+	public double[] getFitnesses() {
+		double[] fitnesses = new double[simulators.length];
+		for (int i = 0; i < simulators.length; i++)
+			fitnesses[i] = simulators[i].getFitness();
+		return fitnesses;
+	}
 
-		double worstFitnessInGeneration = simulators[simulators.length - 1].getFitness();
-		double offsetSum = sum - worstFitnessInGeneration * simulators.length;
+	public void setMigration(Migration migration) {
+		this.migration = migration;
+	}
 
-		// calculate each absolute probability of being chosen as a parent creature
-		if (offsetSum > 0d)
-			for (Simulator simulator : simulators)
-				simulator.setProbability((simulator.getFitness() - worstFitnessInGeneration) / offsetSum);
-		else
-			for (Simulator simulator : simulators)
-				simulator.setProbability(1d / simulators.length);
-		calculateProbabilities();
+	// stop after the current generation, the next one is not started anymore
+	public void stopSimulating() {
+		stopped = true;
+	}
 
-		// override the best fitness if a new one was achieved
-		double bestFitnessInGeneration = simulators[0].getFitness();
-		if (bestFitnessInGeneration > bestFitness)
-			bestFitness = bestFitnessInGeneration;
-
-		Simulator medianSimulator = simulators[simulators.length / 2];
-		medianFitness = medianSimulator.getFitness();
-		medianMutationRate = medianSimulator.getCreature().getMutationRate();
-		medianStructuralMutationRate = medianSimulator.getCreature().getStructuralMutationRate();
+	private void simulateHeadless() {
+		generationScheduler.evaluate(simulators, 0, simulationCycleCount, simulationEngine, this::handleEvaluationDone);
 	}
 
-	private void doReproduction() {
-		// keep the best creature
-		simulators[0].getCreature().reset();
+	private void simulatePipelined() {
+		// breed and simulate the next generation chunk by chunk
+		generationScheduler.evaluate(simulators, 0, simulationCycleCount, simulationEngine, this::breedOffspring, this::handleEvaluationDone);
+	}
 
-		// generate new creatures based on the last generation of creatures
-		Creature[] newCreatures = new Creature[simulators.length - 1];
+	private void breedOffspring(Simulator[] simulators, int from, int to) {
+		for (int i = from; i < to; i++)
+			if (i == 0)
+				// keep the best creature
+				simulators[0].reset();
+			else
+				simulators[i].setGenome(createOffspring(getRandomNumberGenerator(i)));
+	}
 
-		for (int i = 0; i < simulators.length - 1; i++) {
-			// get a parent creature based on its probability of being chosen
-			Creature parentCreature = getRandomParentCreature();
+	private void handleEvaluationDone(EvaluationStatistics evaluationStatistics) {
+		Throwable failure = evaluationStatistics.getFailure();
+		if (failure != null) {
+			// the fitness of the generation is incomplete, so the evolution cannot go on
+			stopped = true;
+			System.err.println("evaluating generation " + (generationCount + 1) + " failed");
+			failure.printStackTrace();
+			appContext.getEventBus().emit(new GenerationFailedEvent(generationCount + 1, failure));
+			return;
+		}
 
-			double mutationRate = getMutatedValue(parentCreature.getMutationRate(), AppContext.getInstance().getCreatureMutationRateBoundaries(), 0.01d);
-			double structuralMutationRate = getMutatedValue(parentCreature.getStructuralMutationRate(), AppContext.getInstance().getCreatureStructuralMutationRateBoundaries(), 0.01d);
-			Creature creature = new Creature(mutationRate, structuralMutationRate);
+		appContext.getEventBus().emit(new GenerationEvaluatedEvent(evaluationStatistics));
+		appContext.getEventBus().emit(new AllSimulatorsDoneEvent());
+	}
 
-			// copy circles from parent creature
-			for (Circle parentCircle : parentCreature.getCircles()) {
-				double frictionPercentage = getMutatedValue(parentCircle.getFrictionPercentage(), 0d, 1d, mutationRate);
+	void doSelection() {
+		if (parentGenomes == null || parentGenomes.length != simulators.length) {
+			parentGenomes = new Genome[simulators.length];
+			fitnesses = new double[simulators.length];
+		}
 
-				double radius = getMutatedValue(parentCircle.getRadius(), AppContext.getInstance().getCircleRadiusBoundaries(), mutationRate);
+		// calculate the statistics of the generation on the primitive fitness values
+		for (int i = 0; i < simulators.length; i++)
+			fitnesses[i] = simulators[i].getFitness();
+		generationStatistics.calculate(fitnesses);
 
-				double startPositionX = getMutatedValue(parentCircle.getStartPosition().getX(), AppContext.getInstance().getCircleStartPositionBoundaries().getX(), mutationRate);
-				double startPositionY = getMutatedValue(parentCircle.getStartPosition().getY(), AppContext.getInstance().getCircleStartPositionBoundaries().getYMin() - radius, AppContext.getInstance().getCircleStartPositionBoundaries().getYMax() - radius, mutationRate);
-				Vector2d startPosition = new Vector2d(startPositionX, startPositionY);
+		// override the best fitness if a new one was achieved
+		if (generationStatistics.getBestFitness() > bestFitness)
+			bestFitness = generationStatistics.getBestFitness();
+
+		Simulator medianSimulator = simulators[generationStatistics.getMedianIndex()];
+		medianFitness = generationStatistics.getMedianFitness();
+		medianMutationRate = medianSimulator.getGenome().getMutationRate();
+		medianStructuralMutationRate = medianSimulator.getGenome().getStructuralMutationRate();
+
+		// move the simulator with the best creature to the front, so that its creature is kept
+		int bestIndex = generationStatistics.getBestIndex();
+		Simulator bestSimulator = simulators[bestIndex];
+		simulators[bestIndex] = simulators[0];
+		simulators[0] = bestSimulator;
+
+		// remember the parent creatures, so that offspring can replace them while others are still being bred
+		for (int i = 0; i < simulators.length; i++) {
+			parentGenomes[i] = simulators[i].getGenome();
+			fitnesses[i] = simulators[i].getFitness();
+		}
 
-				Circle circle = new Circle(frictionPercentage, radius, startPosition);
-				creature.getCircles().add(circle);
-			}
+		// prepare the sampling of parent creatures based on their fitness
+		parentSampler.prepare(fitnesses);
+	}
 
-			// copy muscles from parent creature
-			for (Muscle parentMuscle : parentCreature.getMuscles()) {
-				Circle circle1 = creature.getCircles().get(parentCreature.getCircles().indexOf(parentMuscle.getCircle1()));
-				Circle circle2 = creature.getCircles().get(parentCreature.getCircles().indexOf(parentMuscle.getCircle2()));
+	void doReproduction() {
+		// keep the best creature
+		simulators[0].reset();
 
-				double strength = getMutatedValue(parentMuscle.getStrength(), AppContext.getInstance().getMuscleStrengthBoundaries(), mutationRate);
+		// overwrite the creatures from the last generation with new creatures based on them in parallel
+		IntStream.range(1, simulators.length).parallel().forEach(i -> simulators[i].setGenome(createOffspring(getRandomNumberGenerator(i))));
+	}
 
-				double lengthPhasesX = getMutatedValue(parentMuscle.getLengthPhases().getX(), AppContext.getInstance().getMuscleLengthPhasesBoundaries(), mutationRate);
-				double lengthPhasesY = getMutatedValue(parentMuscle.getLengthPhases().getY(), AppContext.getInstance().getMuscleLengthPhasesBoundaries(), mutationRate);
-				Vector2d lengthPhases = new Vector2d(lengthPhasesX, lengthPhasesY);
+	private Genome createOffspring(RandomNumberGenerator randomNumberGenerator) {
+		// get a parent genome based on its probability of being chosen
+		Genome parentGenome = getRandomParentGenome(randomNumberGenerator);
 
-				double clockPhasesX = getMutatedValue(parentMuscle.getClockPhases().getX(), 0d, 1d, mutationRate);
-				double clockPhasesY = getMutatedValue(parentMuscle.getClockPhases().getY(), 0d, 1d, mutationRate);
-				Vector2d clockPhases = new Vector2d(clockPhasesX, clockPhasesY);
+		// copy the genes of the parent genome and mutate them in place
+		Genome genome = parentGenome.copy();
 
-				double clockSpeed = getMutatedValue(parentMuscle.getClockSpeed(), AppContext.getInstance().getMuscleClockSpeedBoundaries(), mutationRate);
+		double mutationRate = getMutatedValue(randomNumberGenerator, genome.getMutationRate(), config.getCreatureMutationRateBoundaries(), 0.01d);
+		double structuralMutationRate = getMutatedValue(randomNumberGenerator, genome.getStructuralMutationRate(), config.getCreatureStructuralMutationRateBoundaries(), 0.01d);
+		genome.setMutationRate(mutationRate);
+		genome.setStructuralMutationRate(structuralMutationRate);
 
-				Muscle muscle = new Muscle(circle1, circle2, strength, lengthPhases, clockPhases, clockSpeed);
-				creature.getMuscles().add(muscle);
-			}
+		for (int i = 0; i < genome.getCircleCount(); i++) {
+			genome.setFrictionPercentage(i, getMutatedValue(randomNumberGenerator, genome.getFrictionPercentage(i), 0d, 1d, mutationRate));
 
-			creature.adjustToGround();
-			creature.calculatePossibleConnections();
-
-			// apply structural mutations in some cases
-			if (AppContext.getInstance().getRandomNumberGenerator().nextDouble() < structuralMutationRate)
-				creature.addRandomCircle();
-			if (AppContext.getInstance().getRandomNumberGenerator().nextDouble() < structuralMutationRate) {
-				creature.removeRandomCircle();
-				creature.adjustToGround();
-			}
-			if (AppContext.getInstance().getRandomNumberGenerator().nextDouble() < structuralMutationRate)
-				creature.addRandomMuscle();
-			if (AppContext.getInstance().getRandomNumberGenerator().nextDouble() < structuralMutationRate)
-				creature.removeRandomMuscle();
-
-			// save creature for later
-			newCreatures[i] = creature;
+			double radius = getMutatedValue(randomNumberGenerator, genome.getRadius(i), config.getCircleRadiusBoundaries(), mutationRate);
+			genome.setRadius(i, radius);
+
+			genome.setStartPositionX(i, getMutatedValue(randomNumberGenerator, genome.getStartPositionX(i), config.getCircleStartPositionBoundaries().getX(), mutationRate));
+			genome.setStartPositionY(i, getMutatedValue(randomNumberGenerator, genome.getStartPositionY(i), config.getCircleStartPositionBoundaries().getYMin() - radius, config.getCircleStartPositionBoundaries().getYMax() - radius, mutationRate));
 		}
 
-		// overwrite the creatures from the last generation with the new creators
-		for (int i = 1; i < simulators.length; i++)
-			simulators[i].setCreature(newCreatures[i - 1]);
-	}
+		for (int i = 0; i < genome.getMuscleCount(); i++) {
+			genome.setStrength(i, getMutatedValue(randomNumberGenerator, genome.getStrength(i), config.getMuscleStrengthBoundaries(), mutationRate));
 
-	private void calculateProbabilities() {
-		probabilities = new double[simulators.length - 1];
-		probabilities[0] = simulators[0].getProbability();
-		for (int i = 1; i < probabilities.length; i++)
-			probabilities[i] = probabilities[i - 1] + simulators[i].getProbability();
-	}
+			genome.setLengthPhaseX(i, getMutatedValue(randomNumberGenerator, genome.getLengthPhaseX(i), config.getMuscleLengthPhasesBoundaries(), mutationRate));
+			genome.setLengthPhaseY(i, getMutatedValue(randomNumberGenerator, genome.getLengthPhaseY(i), config.getMuscleLengthPhasesBoundaries(), mutationRate));
 
-	private Creature getRandomParentCreature() {
-		double randomNumber = AppContext.getInstance().getRandomNumberGenerator().nextDouble();
+			genome.setClockPhaseX(i, getMutatedValue(randomNumberGenerator, genome.getClockPhaseX(i), 0d, 1d, mutationRate));
+			genome.setClockPhaseY(i, getMutatedValue(randomNumberGenerator, genome.getClockPhaseY(i), 0d, 1d, mutationRate));
 
-		// find the index of the smallest probability larger than the random number
-		// TODO: 12/11/20 implement a binary tree for every generation instead of a binary search for every creature
-		int lowestIndex = 0;
-		int highestIndex = probabilities.length - 1;
-		int index = highestIndex / 2;
+			genome.setClockSpeed(i, getMutatedValue(randomNumberGenerator, genome.getClockSpeed(i), config.getMuscleClockSpeedBoundaries(), mutationRate));
+		}
 
-		while (lowestIndex <= highestIndex) {
-			if (probabilities[index] < randomNumber)
-				lowestIndex = index + 1;
-			else
-				highestIndex = index - 1;
+		genome.adjustToGround();
 
-			// get the index of the element in the middle of the lowest index and the highest index
-			index = lowestIndex + (highestIndex - lowestIndex) / 2;
+		// apply structural mutations in some cases, the creature is only instantiated if its structure changes
+		Creature creature = null;
+		if (randomNumberGenerator.nextDouble() < structuralMutationRate) {
+			creature = getStructuralCreature(creature, genome);
+			creature.addRandomCircle(randomNumberGenerator, config);
+		}
+		if (randomNumberGenerator.nextDouble() < structuralMutationRate) {
+			creature = getStructuralCreature(creature, genome);
+			creature.removeRandomCircle(randomNumberGenerator);
+			creature.adjustToGround();
+		}
+		if (randomNumberGenerator.nextDouble() < structuralMutationRate) {
+			creature = getStructuralCreature(creature, genome);
+			creature.addRandomMuscle(randomNumberGenerator, config);
+		}
+		if (randomNumberGenerator.nextDouble() < structuralMutationRate) {
+			creature = getStructuralCreature(creature, genome);
+			creature.removeRandomMuscle(randomNumberGenerator);
 		}
 
-		// return the chosen parent creature
-		return simulators[index].getCreature();
+		return creature == null ? genome : new Genome(creature);
 	}
 
-	private double getMutatedValue(double currentValue, double boundaryMin, double boundaryMax, double mutationRate) {
+	private static Creature getStructuralCreature(Creature creature, Genome genome) {
+		if (creature != null)
+			return creature;
+
+		creature = new Creature(genome);
+		creature.calculatePossibleConnections();
+		return creature;
+	}
+
+	Genome getRandomParentGenome(RandomNumberGenerator randomNumberGenerator) {
+		return parentGenomes[parentSampler.sample(randomNumberGenerator)];
+	}
+
+	private double getMutatedValue(RandomNumberGenerator randomNumberGenerator, double currentValue, double boundaryMin, double boundaryMax, double mutationRate) {
 		double randomRangeMin = (boundaryMin - boundaryMax) / 2;
 		double randomRangeMax = (boundaryMax - boundaryMin) / 2;
-		return Math.min(Math.max(currentValue + AppContext.getInstance().getRandomNumberGenerator().getRandomRange(randomRangeMin, randomRangeMax) * mutationRate, boundaryMin), boundaryMax);
+		return Math.min(Math.max(currentValue + randomNumberGenerator.getRandomRange(randomRangeMin, randomRangeMax) * mutationRate, boundaryMin), boundaryMax);
+	}
+
+	private double getMutatedValue(RandomNumberGenerator randomNumberGenerator, double currentValue, Boundary2d boundaries, double mutationRate) {
+		return getMutatedValue(randomNumberGenerator, currentValue, boundaries.getMin(), boundaries.getMax(), mutationRate);
 	}
 
-	private double getMutatedValue(double currentValue, Boundary2d boundaries, double mutationRate) {
-		return getMutatedValue(currentValue, boundaries.getMin(), boundaries.getMax(), mutationRate);
+	// the package-private methods are called directly by the benchmarks
+	Simulator[] getSimulators() {
+		return simulators;
 	}
 }
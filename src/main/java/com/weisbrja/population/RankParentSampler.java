@@ -0,0 +1,53 @@
+package com.weisbrja.population;
+
+import com.weisbrja.RandomNumberGenerator;
+
+import java.util.Arrays;
+
+// linear rank selection, the n-th worst creature is chosen with a weight of n
+public class RankParentSampler implements ParentSampler {
+
+	private final AliasTable aliasTable;
+	private double[] sortedFitnesses;
+	private double[] weights;
+
+	public RankParentSampler() {
+		aliasTable = new AliasTable();
+		sortedFitnesses = new double[0];
+		weights = new double[0];
+	}
+
+	@Override
+	public void prepare(double[] fitnesses) {
+		if (fitnesses.length != sortedFitnesses.length) {
+			sortedFitnesses = new double[fitnesses.length];
+			weights = new double[fitnesses.length];
+		}
+
+		System.arraycopy(fitnesses, 0, sortedFitnesses, 0, fitnesses.length);
+		Arrays.sort(sortedFitnesses);
+
+		// creatures with the same fitness share the same rank
+		for (int i = 0; i < fitnesses.length; i++)
+			weights[i] = getLowerBound(fitnesses[i]) + 1;
+		aliasTable.build(weights, fitnesses.length);
+	}
+
+	private int getLowerBound(double fitness) {
+		int lowestIndex = 0;
+		int highestIndex = sortedFitnesses.length;
+		while (lowestIndex < highestIndex) {
+			int index = lowestIndex + (highestIndex - lowestIndex) / 2;
+			if (Double.compare(sortedFitnesses[index], fitness) < 0)
+				lowestIndex = index + 1;
+			else
+				highestIndex = index;
+		}
+		return lowestIndex;
+	}
+
+	@Override
+	public int sample(RandomNumberGenerator randomNumberGenerator) {
+		return aliasTable.sample(randomNumberGenerator);
+	}
+}
@@ -0,0 +1,30 @@
+package com.weisbrja.population;
+
+import com.weisbrja.RandomNumberGenerator;
+
+// the fittest of a few uniformly chosen creatures wins
+public class TournamentParentSampler implements ParentSampler {
+
+	private final int tournamentSize;
+	private double[] fitnesses;
+
+	public TournamentParentSampler(int tournamentSize) {
+		this.tournamentSize = tournamentSize;
+	}
+
+	@Override
+	public void prepare(double[] fitnesses) {
+		this.fitnesses = fitnesses;
+	}
+
+	@Override
+	public int sample(RandomNumberGenerator randomNumberGenerator) {
+		int winner = randomNumberGenerator.nextInt(fitnesses.length);
+		for (int i = 1; i < tournamentSize; i++) {
+			int contestant = randomNumberGenerator.nextInt(fitnesses.length);
+			if (fitnesses[contestant] > fitnesses[winner])
+				winner = contestant;
+		}
+		return winner;
+	}
+}
@@ -0,0 +1,397 @@
+package com.weisbrja.remote;
+
+import com.weisbrja.engine.Pruning;
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.population.ChunkPreparer;
+import com.weisbrja.population.EvaluationStatistics;
+import com.weisbrja.population.GenerationScheduler;
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// evaluates the generations in batches on worker processes, every simulator gets exactly the fitness it would get locally
+public class RemoteGenerationScheduler implements GenerationScheduler {
+
+	// a connection with batches in flight that stays silent this long is dropped and its batches are sent again
+	private static final int responseTimeout = 60000;
+	// a batch that was sent this often without an answer fails its generation, e.g. because it takes every worker down
+	private static final int maxSendCount = 3;
+	private static final long reconnectDelay = 1000L;
+	// how often the dispatching threads look for a closed scheduler or a lost connection
+	private static final long pollInterval = 100L;
+
+	private final PhysicsParameters physicsParameters;
+	// null if every creature is simulated to the end
+	private final Pruning pruning;
+	private final int batchSize;
+	private final int maxInFlightBatchCount;
+
+	// the batches nobody has sent yet, batches of lost connections are put back at the front
+	private final BlockingDeque<Batch> pendingBatches;
+	private final List<WorkerConnection> workerConnections;
+	private final AtomicLong nextBatchId;
+	private volatile boolean closed;
+
+	public RemoteGenerationScheduler(List<InetSocketAddress> workerAddresses, PhysicsParameters physicsParameters, Pruning pruning, int batchSize, int maxInFlightBatchCount) {
+		if (workerAddresses.isEmpty() || batchSize < 1 || maxInFlightBatchCount < 1)
+			throw new IllegalArgumentException("at least one worker, a positive batch size and at least one batch in flight are required");
+
+		this.physicsParameters = physicsParameters;
+		this.pruning = pruning;
+		this.batchSize = batchSize;
+		this.maxInFlightBatchCount = maxInFlightBatchCount;
+		pendingBatches = new LinkedBlockingDeque<>();
+		nextBatchId = new AtomicLong();
+
+		workerConnections = new ArrayList<>();
+		for (InetSocketAddress workerAddress : workerAddresses)
+			workerConnections.add(new WorkerConnection(workerConnections.size(), workerAddress));
+		for (WorkerConnection workerConnection : workerConnections)
+			workerConnection.start();
+	}
+
+	@Override
+	public void evaluate(Simulator[] simulators, int from, int cycleCount, SimulationEngine simulationEngine, ChunkPreparer chunkPreparer, Consumer<EvaluationStatistics> doneListener) {
+		// the workers simulate with their own engines, the physics parameters were sent when connecting and the pruning is sent with every batch, only the preparation happens here
+		int batchCount = (simulators.length - from + batchSize - 1) / batchSize;
+		Generation generation = new Generation(simulators.length - from, batchCount, doneListener);
+		if (batchCount == 0) {
+			generation.finish();
+			return;
+		}
+
+		for (int batchFrom = from; batchFrom < simulators.length; batchFrom += batchSize)
+			pendingBatches.add(new Batch(nextBatchId.getAndIncrement(), generation, simulators, batchFrom, Math.min(batchFrom + batchSize, simulators.length), cycleCount, chunkPreparer, pruning));
+	}
+
+	// stop the dispatching threads and close their connections, the workers keep running
+	@Override
+	public void close() {
+		closed = true;
+		for (WorkerConnection workerConnection : workerConnections)
+			workerConnection.close();
+		for (WorkerConnection workerConnection : workerConnections)
+			workerConnection.join();
+	}
+
+	private class Generation {
+
+		private final int simulatorCount;
+		private final AtomicInteger remainingBatchCount;
+		private final Consumer<EvaluationStatistics> doneListener;
+		private final long startTime;
+		// the summed round trip times of the batches every worker answered
+		private final LongAdder[] busyTimes;
+		// a generation is finished once, either when the last batch is answered or when a batch could not be prepared, simulated or sent
+		private final AtomicBoolean finished;
+
+		private Generation(int simulatorCount, int batchCount, Consumer<EvaluationStatistics> doneListener) {
+			this.simulatorCount = simulatorCount;
+			this.doneListener = doneListener;
+			remainingBatchCount = new AtomicInteger(batchCount);
+			startTime = System.nanoTime();
+			finished = new AtomicBoolean();
+			busyTimes = new LongAdder[workerConnections.size()];
+			for (int i = 0; i < busyTimes.length; i++)
+				busyTimes[i] = new LongAdder();
+		}
+
+		private void finish() {
+			if (!finished.compareAndSet(false, true))
+				return;
+
+			// a worker counts as fully utilised when all of its batch slots were occupied the whole time
+			long wallTime = System.nanoTime() - startTime;
+			double[] workerUtilisations = new double[busyTimes.length];
+			for (int i = 0; i < busyTimes.length; i++)
+				workerUtilisations[i] = wallTime > 0L ? busyTimes[i].doubleValue() / ((double) wallTime * maxInFlightBatchCount) : 0d;
+			doneListener.accept(new EvaluationStatistics(simulatorCount, wallTime, workerUtilisations));
+		}
+
+		private void fail(Throwable failure) {
+			// the remaining batches of the generation are skipped by the dispatching threads
+			if (finished.compareAndSet(false, true))
+				doneListener.accept(new EvaluationStatistics(simulatorCount, System.nanoTime() - startTime, failure));
+		}
+	}
+
+	private static class Batch {
+
+		private final long id;
+		private final Generation generation;
+		private final Simulator[] simulators;
+		private final int from;
+		private final int to;
+		private final int cycleCount;
+		// null if the simulators are ready
+		private final ChunkPreparer chunkPreparer;
+		// the threshold is sent as it is when the batch is written, it only changes between generations
+		private final Pruning pruning;
+		// a batch is prepared once, before it is sent for the first time
+		private boolean prepared;
+		// only changed by the dispatching thread that took the batch from the pending batches
+		private int sendCount;
+		// a batch that was sent again may be answered twice, only the first answer counts
+		private final AtomicBoolean done;
+		private long sendTime;
+
+		private Batch(long id, Generation generation, Simulator[] simulators, int from, int to, int cycleCount, ChunkPreparer chunkPreparer, Pruning pruning) {
+			this.id = id;
+			this.generation = generation;
+			this.simulators = simulators;
+			this.from = from;
+			this.to = to;
+			this.cycleCount = cycleCount;
+			this.chunkPreparer = chunkPreparer;
+			this.pruning = pruning;
+			done = new AtomicBoolean();
+		}
+
+		private void prepare() {
+			if (!prepared) {
+				if (chunkPreparer != null)
+					chunkPreparer.prepare(simulators, from, to);
+				prepared = true;
+			}
+		}
+
+		private boolean isDone() {
+			return done.get() || generation.finished.get();
+		}
+
+		private void write(DataOutputStream output) throws IOException {
+			output.writeLong(id);
+			output.writeInt(cycleCount);
+			output.writeBoolean(pruning != null);
+			if (pruning != null)
+				pruning.write(output);
+			output.writeInt(to - from);
+			for (int i = from; i < to; i++)
+				simulators[i].getGenome().write(output);
+		}
+
+		private void complete(double[] fitnesses, long prunedCreatureCount, long savedCreatureStepCount, int workerIndex) {
+			if (!done.compareAndSet(false, true) || generation.finished.get())
+				return;
+
+			// every fitness goes back to the simulator at its original index, regardless of the order the batches arrive in
+			for (int i = from; i < to; i++)
+				simulators[i].setFitness(fitnesses[i - from]);
+			if (pruning != null)
+				pruning.count(prunedCreatureCount, savedCreatureStepCount);
+			generation.busyTimes[workerIndex].add(System.nanoTime() - sendTime);
+
+			if (generation.remainingBatchCount.decrementAndGet() == 0)
+				generation.finish();
+		}
+	}
+
+	private class WorkerConnection {
+
+		private final int index;
+		private final InetSocketAddress address;
+		// limits the batches sent to the worker but not answered yet, which keeps every worker busy without flooding it
+		private final Semaphore inFlightPermits;
+		private final Map<Long, Batch> inFlightBatches;
+		private final Thread dispatchThread;
+		// the socket of the current connection attempt, closed from outside to stop the dispatching thread
+		private volatile Socket socket;
+		private volatile boolean connected;
+		// only the first of several failed connection attempts in a row is reported
+		private boolean reachable;
+
+		private WorkerConnection(int index, InetSocketAddress address) {
+			this.index = index;
+			this.address = address;
+			inFlightPermits = new Semaphore(maxInFlightBatchCount);
+			inFlightBatches = new ConcurrentHashMap<>();
+			reachable = true;
+			dispatchThread = new Thread(this::run, "remote-dispatch-" + address);
+			dispatchThread.setDaemon(true);
+		}
+
+		private void start() {
+			dispatchThread.start();
+		}
+
+		private void close() {
+			// closing the socket also ends a pending connection attempt or a blocked write
+			Socket socket = this.socket;
+			if (socket != null)
+				try {
+					socket.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			dispatchThread.interrupt();
+		}
+
+		private void join() {
+			try {
+				dispatchThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void run() {
+			while (!closed) {
+				try (Socket socket = new Socket()) {
+					this.socket = socket;
+					if (closed)
+						return;
+					socket.connect(address, responseTimeout);
+					socket.setSoTimeout(responseTimeout);
+					socket.setTcpNoDelay(true);
+					DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+					DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+					output.writeInt(SimulationWorker.protocolVersion);
+					physicsParameters.write(output);
+					output.flush();
+
+					connected = true;
+					reachable = true;
+					Thread receiveThread = new Thread(() -> receive(input), "remote-receive-" + address);
+					receiveThread.setDaemon(true);
+					receiveThread.start();
+
+					try {
+						dispatch(output);
+					} finally {
+						connected = false;
+						socket.close();
+						receiveThread.join();
+					}
+				} catch (IOException e) {
+					if (reachable && !closed)
+						System.err.println("lost connection to worker " + address + ": " + e);
+					reachable = false;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+
+				retryInFlightBatches();
+				try {
+					if (!closed)
+						Thread.sleep(reconnectDelay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		private void dispatch(DataOutputStream output) throws IOException, InterruptedException {
+			while (connected && !closed) {
+				if (!inFlightPermits.tryAcquire(pollInterval, TimeUnit.MILLISECONDS))
+					continue;
+
+				Batch batch = pendingBatches.poll(pollInterval, TimeUnit.MILLISECONDS);
+				if (batch == null || batch.isDone()) {
+					inFlightPermits.release();
+					continue;
+				}
+
+				// a batch that cannot be prepared fails its generation, the connection stays usable for the next one
+				try {
+					batch.prepare();
+				} catch (RuntimeException | Error e) {
+					inFlightPermits.release();
+					batch.generation.fail(e);
+					continue;
+				}
+
+				if (batch.sendCount == maxSendCount) {
+					inFlightPermits.release();
+					batch.generation.fail(new IOException("batch " + batch.id + " was sent " + maxSendCount + " times without an answer"));
+					continue;
+				}
+				batch.sendCount++;
+
+				// register the batch before sending it, so that it is sent again if the connection breaks while writing
+				batch.sendTime = System.nanoTime();
+				inFlightBatches.put(batch.id, batch);
+				batch.write(output);
+				output.flush();
+			}
+		}
+
+		private void receive(DataInputStream input) {
+			try {
+				while (connected) {
+					long batchId;
+					try {
+						batchId = input.readLong();
+					} catch (SocketTimeoutException e) {
+						// silence is only suspicious while the worker owes an answer
+						if (inFlightBatches.isEmpty())
+							continue;
+						throw e;
+					}
+
+					int genomeCount = input.readInt();
+					if (genomeCount == SimulationWorker.failedBatch) {
+						String message = input.readUTF();
+						Batch batch = inFlightBatches.remove(batchId);
+						if (batch != null) {
+							inFlightPermits.release();
+							batch.generation.fail(new IllegalStateException("worker " + address + " failed to simulate batch " + batchId + ": " + message));
+						}
+						continue;
+					}
+
+					double[] fitnesses = new double[genomeCount];
+					for (int i = 0; i < fitnesses.length; i++)
+						fitnesses[i] = input.readDouble();
+					long prunedCreatureCount = input.readLong();
+					long savedCreatureStepCount = input.readLong();
+
+					Batch batch = inFlightBatches.remove(batchId);
+					if (batch != null) {
+						inFlightPermits.release();
+						batch.complete(fitnesses, prunedCreatureCount, savedCreatureStepCount, index);
+					}
+				}
+			} catch (IOException e) {
+				if (connected && !closed)
+					System.err.println("lost connection to worker " + address + ": " + e);
+			} finally {
+				connected = false;
+			}
+		}
+
+		private void retryInFlightBatches() {
+			// put the unanswered batches back in front, so that the other workers pick them up first
+			for (Batch batch : inFlightBatches.values())
+				if (!batch.isDone())
+					pendingBatches.addFirst(batch);
+			inFlightBatches.clear();
+
+			inFlightPermits.drainPermits();
+			inFlightPermits.release(maxInFlightBatchCount);
+		}
+	}
+}
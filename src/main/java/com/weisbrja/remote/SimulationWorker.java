@@ -0,0 +1,158 @@
+package com.weisbrja.remote;
+
+import com.weisbrja.engine.BatchSimulationEngine;
+import com.weisbrja.engine.Pruning;
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// simulates the batches of genomes sent by a coordinator and answers with their fitness only
+public class SimulationWorker {
+
+	// the coordinator opens every connection with this version followed by the physics parameters
+	static final int protocolVersion = 3;
+	// sent instead of the genome count when a batch could not be simulated, followed by the reason
+	static final int failedBatch = -1;
+	// the reason sent to the coordinator is cut off after this many characters
+	private static final int maxFailureMessageLength = 1000;
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService executorService;
+	// builds the engine of every connection from the physics parameters the coordinator sent
+	private final Function<PhysicsParameters, BatchSimulationEngine> simulationEngineFactory;
+
+	public SimulationWorker(int port, int threadCount) throws IOException {
+		this(port, threadCount, BatchSimulationEngine::new);
+	}
+
+	SimulationWorker(int port, int threadCount, Function<PhysicsParameters, BatchSimulationEngine> simulationEngineFactory) throws IOException {
+		this.simulationEngineFactory = simulationEngineFactory;
+		serverSocket = new ServerSocket(port);
+		executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+			Thread thread = new Thread(runnable, "simulation-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// usage: SimulationWorker <port> [threads]
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2)
+			throw new IllegalArgumentException("expected the port and optionally the number of threads");
+
+		int port = Integer.parseInt(args[0]);
+		int threadCount = args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		SimulationWorker simulationWorker = new SimulationWorker(port, threadCount);
+		System.err.println("simulation worker listening on port " + simulationWorker.getPort() + " with " + threadCount + " threads");
+		simulationWorker.run();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	// accept coordinators until the worker is closed
+	public void run() throws IOException {
+		while (!serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (SocketException e) {
+				// the server socket was closed
+				return;
+			}
+
+			Thread connectionThread = new Thread(() -> serve(socket), "simulation-worker-connection");
+			connectionThread.setDaemon(true);
+			connectionThread.start();
+		}
+	}
+
+	public void close() throws IOException {
+		serverSocket.close();
+		executorService.shutdownNow();
+	}
+
+	private void serve(Socket socket) {
+		try (Socket closedSocket = socket) {
+			socket.setTcpNoDelay(true);
+			DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			int version = input.readInt();
+			if (version != protocolVersion)
+				throw new IOException("unsupported protocol version: " + version);
+			BatchSimulationEngine simulationEngine = simulationEngineFactory.apply(PhysicsParameters.read(input));
+
+			// the coordinator limits the batches in flight, so the queue of the executor stays bounded
+			while (true) {
+				long batchId;
+				try {
+					batchId = input.readLong();
+				} catch (EOFException e) {
+					return;
+				}
+				int cycleCount = input.readInt();
+				// every batch brings the pruning of its generation, so that the worker cuts off exactly the creatures the coordinator would
+				Pruning pruning = input.readBoolean() ? Pruning.read(input) : null;
+				int genomeCount = input.readInt();
+
+				// the simulators only need a context to be drawn, which never happens here
+				Simulator[] simulators = new Simulator[genomeCount];
+				for (int i = 0; i < genomeCount; i++)
+					simulators[i] = new Simulator(null, Genome.read(input));
+
+				executorService.execute(() -> {
+					// the physics are deterministic, so a batch that fails here fails on every worker and the coordinator is told instead of sending it again
+					Throwable failure = null;
+					try {
+						simulationEngine.simulate(simulators, 0, genomeCount, cycleCount, pruning);
+					} catch (RuntimeException | Error e) {
+						System.err.println("simulating batch " + batchId + " failed: " + e);
+						failure = e;
+					}
+					try {
+						synchronized (output) {
+							output.writeLong(batchId);
+							if (failure != null) {
+								output.writeInt(failedBatch);
+								String message = failure.toString();
+								output.writeUTF(message.length() > maxFailureMessageLength ? message.substring(0, maxFailureMessageLength) : message);
+							} else {
+								output.writeInt(genomeCount);
+								for (Simulator simulator : simulators)
+									output.writeDouble(simulator.getFitness());
+								output.writeLong(pruning != null ? pruning.getPrunedCreatureCount() : 0L);
+								output.writeLong(pruning != null ? pruning.getSavedCreatureStepCount() : 0L);
+							}
+							output.flush();
+						}
+					} catch (IOException e) {
+						// the coordinator sends the batch again to another connection
+						try {
+							socket.close();
+						} catch (IOException closeException) {
+							closeException.printStackTrace();
+						}
+					}
+				});
+			}
+		} catch (IOException | RuntimeException e) {
+			// a batch that cannot be read ends the connection, the coordinator only sends it a few times
+			System.err.println("lost connection to coordinator: " + e);
+		}
+	}
+}
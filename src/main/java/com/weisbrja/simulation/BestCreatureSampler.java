@@ -0,0 +1,22 @@
+package com.weisbrja.simulation;
+
+// watches the fittest creatures, the fittest one first
+public class BestCreatureSampler implements CreatureSampler {
+
+	@Override
+	public int[] sample(Genome[] genomes, double[] fitnesses, int count) {
+		int[] sample = new int[Math.min(count, genomes.length)];
+		boolean[] sampled = new boolean[genomes.length];
+
+		// only a few creatures are watched, so picking the best remaining one for every place is cheaper than sorting the generation
+		for (int i = 0; i < sample.length; i++) {
+			int bestIndex = -1;
+			for (int j = 0; j < genomes.length; j++)
+				if (!sampled[j] && (bestIndex == -1 || fitnesses[j] > fitnesses[bestIndex]))
+					bestIndex = j;
+			sampled[bestIndex] = true;
+			sample[i] = bestIndex;
+		}
+		return sample;
+	}
+}
@@ -7,11 +7,18 @@ public class Boundary4d {
 	private final double yMin;
 	private final double yMax;
 
+	// the boundaries of each axis, created once instead of on every call
+	private final Boundary2d x;
+	private final Boundary2d y;
+
 	public Boundary4d(double xMin, double xMax, double yMin, double yMax) {
 		this.xMin = xMin;
 		this.xMax = xMax;
 		this.yMin = yMin;
 		this.yMax = yMax;
+
+		x = new Boundary2d(xMin, xMax);
+		y = new Boundary2d(yMin, yMax);
 	}
 
 	public double getXMin() {
@@ -31,10 +38,10 @@ public class Boundary4d {
 	}
 
 	public Boundary2d getX() {
-		return new Boundary2d(xMin, xMax);
+		return x;
 	}
 
 	public Boundary2d getY() {
-		return new Boundary2d(yMin, yMax);
+		return y;
 	}
 }
@@ -1,6 +1,7 @@
 package com.weisbrja.simulation;
 
-import com.weisbrja.AppContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
 
 import javax.vecmath.Vector2d;
 
@@ -15,11 +16,11 @@ public class Circle {
 	private double frictionPercentage;
 	private double radius;
 
-	public Circle() {
+	public Circle(SimulationConfig config) {
 		frictionPercentage = 0.5d;
-		radius = (AppContext.getInstance().getCircleRadiusBoundaries().getMin() + AppContext.getInstance().getCircleRadiusBoundaries().getMax()) / 2d;
-		double startPositionX = (AppContext.getInstance().getCircleStartPositionBoundaries().getXMin() + AppContext.getInstance().getCircleStartPositionBoundaries().getXMax()) / 2d;
-		double startPositionY = (AppContext.getInstance().getCircleStartPositionBoundaries().getYMin() + AppContext.getInstance().getCircleStartPositionBoundaries().getYMax()) / 2d - radius;
+		radius = (config.getCircleRadiusBoundaries().getMin() + config.getCircleRadiusBoundaries().getMax()) / 2d;
+		double startPositionX = (config.getCircleStartPositionBoundaries().getXMin() + config.getCircleStartPositionBoundaries().getXMax()) / 2d;
+		double startPositionY = (config.getCircleStartPositionBoundaries().getYMin() + config.getCircleStartPositionBoundaries().getYMax()) / 2d - radius;
 		startPosition = new Vector2d(startPositionX, startPositionY);
 		reset();
 	}
@@ -37,15 +38,15 @@ public class Circle {
 		acceleration = new Vector2d(0d, 0d);
 	}
 
-	public void randomize() {
-		frictionPercentage = AppContext.getInstance().getRandomNumberGenerator().nextDouble();
-		radius = AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getCircleRadiusBoundaries());
-		startPosition.setX(AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getCircleStartPositionBoundaries().getX()) - radius);
-		startPosition.setY(AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getCircleStartPositionBoundaries().getY()) - radius);
+	public void randomize(RandomNumberGenerator randomNumberGenerator, SimulationConfig config) {
+		frictionPercentage = randomNumberGenerator.nextDouble();
+		radius = randomNumberGenerator.getRandomRange(config.getCircleRadiusBoundaries());
+		startPosition.setX(randomNumberGenerator.getRandomRange(config.getCircleStartPositionBoundaries().getX()) - radius);
+		startPosition.setY(randomNumberGenerator.getRandomRange(config.getCircleStartPositionBoundaries().getY()) - radius);
 		reset();
 	}
 
-	public void update() {
+	public void update(PhysicsParameters physicsParameters) {
 		// check if the circle is rolling on the ground
 		if (getOnGround() && velocity.getY() == 0d) {
 			// add the x-acceleration to the x-velocity
@@ -63,7 +64,7 @@ public class Circle {
 		}
 
 		// apply air friction to the velocity
-		velocity.scale(AppContext.getInstance().getAirFriction());
+		velocity.scale(physicsParameters.getAirFriction());
 
 		// check if the circle would collide with the ground
 		if (position.getY() + velocity.getY() + radius > 0d) {
@@ -73,7 +74,7 @@ public class Circle {
 			position.add(velocity1);
 
 			// negate the y-velocity and scale it by the ground dampening factor
-			velocity.setY(-velocity.getY() * AppContext.getInstance().getGroundDamping());
+			velocity.setY(-velocity.getY() * physicsParameters.getGroundDamping());
 
 			// calculate the rest of the velocity
 			Vector2d velocity2 = (Vector2d) velocity.clone();
@@ -81,7 +82,7 @@ public class Circle {
 			velocity2.scale(velocity.length() - velocity1.length());
 
 			// check if the rest y-velocity is less than or equal to the gravity-y
-			if (Math.abs(velocity2.getY()) <= AppContext.getInstance().getGravityY()) {
+			if (Math.abs(velocity2.getY()) <= physicsParameters.getGravityY()) {
 				// set the rest y-velocity and the y-velocity to zero
 				velocity2.setY(0d);
 				velocity.setY(0d);
@@ -129,4 +130,12 @@ public class Circle {
 	public Vector2d getPosition() {
 		return position;
 	}
+
+	public Vector2d getVelocity() {
+		return velocity;
+	}
+
+	public Vector2d getAcceleration() {
+		return acceleration;
+	}
 }
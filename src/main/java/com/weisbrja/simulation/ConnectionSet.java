@@ -0,0 +1,112 @@
+package com.weisbrja.simulation;
+
+import java.util.Arrays;
+
+// a set of connections between circle indices, with constant time insertion, removal and access by position
+public class ConnectionSet {
+
+	private int circleCount;
+	private int size;
+
+	// the connections in no particular order
+	private int[] circles1;
+	private int[] circles2;
+
+	// upper-triangular matrix over the circle indices, holds the position of a connection plus one or zero if it is absent
+	private int[] positions;
+
+	public ConnectionSet() {
+		circles1 = new int[8];
+		circles2 = new int[8];
+		positions = new int[8];
+	}
+
+	public void clear(int circleCount) {
+		this.circleCount = 0;
+		size = 0;
+		Arrays.fill(positions, 0);
+		setCircleCount(circleCount);
+	}
+
+	// grow the set to the given number of circles, the rows of new circles are appended after the existing rows
+	public void setCircleCount(int circleCount) {
+		if (circleCount <= this.circleCount)
+			return;
+		this.circleCount = circleCount;
+
+		int slotCount = circleCount * (circleCount - 1) / 2;
+		if (slotCount > positions.length)
+			positions = Arrays.copyOf(positions, Math.max(slotCount, positions.length * 2));
+		if (slotCount > circles1.length) {
+			int newCapacity = Math.max(slotCount, circles1.length * 2);
+			circles1 = Arrays.copyOf(circles1, newCapacity);
+			circles2 = Arrays.copyOf(circles2, newCapacity);
+		}
+	}
+
+	private static int getSlot(int circle1, int circle2) {
+		int low = Math.min(circle1, circle2);
+		int high = Math.max(circle1, circle2);
+		return high * (high - 1) / 2 + low;
+	}
+
+	public boolean contains(int circle1, int circle2) {
+		return positions[getSlot(circle1, circle2)] != 0;
+	}
+
+	public void add(int circle1, int circle2) {
+		int slot = getSlot(circle1, circle2);
+		if (positions[slot] == 0) {
+			circles1[size] = Math.min(circle1, circle2);
+			circles2[size] = Math.max(circle1, circle2);
+			positions[slot] = ++size;
+		}
+	}
+
+	public void remove(int circle1, int circle2) {
+		int slot = getSlot(circle1, circle2);
+		int position = positions[slot] - 1;
+		if (position >= 0) {
+			positions[slot] = 0;
+
+			// move the last connection into the gap
+			if (position != --size) {
+				circles1[position] = circles1[size];
+				circles2[position] = circles2[size];
+				positions[getSlot(circles1[position], circles2[position])] = position + 1;
+			}
+		}
+	}
+
+	public int getConnectionCount(int circle) {
+		int connectionCount = 0;
+		for (int i = 0; i < circleCount; i++)
+			if (i != circle && contains(circle, i))
+				connectionCount++;
+		return connectionCount;
+	}
+
+	// return the circle at the given index among the circles connected to the given circle
+	public int getConnectedCircle(int circle, int index) {
+		for (int i = 0; i < circleCount; i++)
+			if (i != circle && contains(circle, i) && index-- == 0)
+				return i;
+		throw new IndexOutOfBoundsException("index out of range for circle " + circle);
+	}
+
+	public int getCircle1(int position) {
+		return circles1[position];
+	}
+
+	public int getCircle2(int position) {
+		return circles2[position];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
@@ -1,15 +1,22 @@
 package com.weisbrja.simulation;
 
-import com.weisbrja.AppContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
 
 import javax.vecmath.Vector2d;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Creature {
 
 	private final List<Circle> circles;
 	private final List<Muscle> muscles;
-	private final LinkedHashSet<Set<Circle>> possibleConnectionSet;
+	private final ConnectionSet possibleConnections;
+
+	// the number of grounded circles and the summed circle positions after the last update, only valid while cached is set
+	private int groundedCircleCount;
+	private final Vector2d positionSum;
+	private boolean cached;
 
 	// variables affected by mutations
 	private double mutationRate;
@@ -18,7 +25,8 @@ public class Creature {
 	public Creature() {
 		circles = new ArrayList<>();
 		muscles = new ArrayList<>();
-		possibleConnectionSet = new LinkedHashSet<>();
+		possibleConnections = new ConnectionSet();
+		positionSum = new Vector2d();
 
 		mutationRate = 0.01d;
 		structuralMutationRate = 0.01d;
@@ -31,7 +39,21 @@ public class Creature {
 		circles = new ArrayList<>();
 		muscles = new ArrayList<>();
 
-		possibleConnectionSet = new LinkedHashSet<>();
+		possibleConnections = new ConnectionSet();
+		positionSum = new Vector2d();
+	}
+
+	public Creature(Genome genome) {
+		this(genome.getMutationRate(), genome.getStructuralMutationRate());
+
+		for (int i = 0; i < genome.getCircleCount(); i++)
+			circles.add(new Circle(genome.getFrictionPercentage(i), genome.getRadius(i), new Vector2d(genome.getStartPositionX(i), genome.getStartPositionY(i))));
+
+		for (int i = 0; i < genome.getMuscleCount(); i++) {
+			Vector2d lengthPhases = new Vector2d(genome.getLengthPhaseX(i), genome.getLengthPhaseY(i));
+			Vector2d clockPhases = new Vector2d(genome.getClockPhaseX(i), genome.getClockPhaseY(i));
+			muscles.add(new Muscle(circles.get(genome.getCircle1(i)), circles.get(genome.getCircle2(i)), genome.getStrength(i), lengthPhases, clockPhases, genome.getClockSpeed(i)));
+		}
 	}
 
 	public void reset() {
@@ -39,11 +61,12 @@ public class Creature {
 			circle.reset();
 		for (Muscle muscle : muscles)
 			muscle.reset();
+		cached = false;
 	}
 
-	public void randomize() {
-		mutationRate = AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getCreatureMutationRateBoundaries());
-		structuralMutationRate = AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getCreatureStructuralMutationRateBoundaries());
+	public void randomize(RandomNumberGenerator randomNumberGenerator, SimulationConfig config) {
+		mutationRate = randomNumberGenerator.getRandomRange(config.getCreatureMutationRateBoundaries());
+		structuralMutationRate = randomNumberGenerator.getRandomRange(config.getCreatureStructuralMutationRateBoundaries());
 	}
 
 	public void adjustToGround() {
@@ -60,13 +83,22 @@ public class Creature {
 			circle.getStartPosition().setY(circle.getStartPosition().getY() - lowestStartPositionY);
 			circle.getPosition().setY(circle.getStartPosition().getY());
 		}
+		cached = false;
 	}
 
-	public void update() {
+	public void update(PhysicsParameters physicsParameters) {
 		for (Muscle muscle : muscles)
-			muscle.update();
-		for (Circle circle : circles)
-			circle.update();
+			muscle.update(physicsParameters);
+		// count the grounded circles and sum the positions while the circles are updated anyway
+		groundedCircleCount = 0;
+		positionSum.set(0d, 0d);
+		for (Circle circle : circles) {
+			circle.update(physicsParameters);
+			if (circle.getOnGround())
+				groundedCircleCount++;
+			positionSum.add(circle.getPosition());
+		}
+		cached = true;
 	}
 
 	public void applyForceY(double forceY) {
@@ -76,106 +108,78 @@ public class Creature {
 
 	public void calculatePossibleConnections() {
 		// calculate all possible connections
+		possibleConnections.clear(circles.size());
 		for (int i = 0; i < circles.size() - 1; i++)
 			for (int j = i + 1; j < circles.size(); j++)
-				addPossibleConnection(circles.get(i), circles.get(j));
+				possibleConnections.add(i, j);
 
 		// remove existing connections from possible connections
 		for (Muscle muscle : muscles)
-			removePossibleConnection(muscle.getCircle1(), muscle.getCircle2());
-	}
-
-	private void removePossibleConnection(Circle circle1, Circle circle2) {
-		possibleConnectionSet.remove(getConnection(circle1, circle2));
+			possibleConnections.remove(circles.indexOf(muscle.getCircle1()), circles.indexOf(muscle.getCircle2()));
 	}
 
-	private void addPossibleConnection(Circle circle1, Circle circle2) {
-		possibleConnectionSet.add(getConnection(circle1, circle2));
-	}
-
-	private Set<Circle> getConnection(Circle circle1, Circle circle2) {
-		Set<Circle> connection = new HashSet<>();
-		connection.add(circle1);
-		connection.add(circle2);
-		return connection;
-	}
-
-	public void addRandomCircle() {
-		Circle circle = new Circle();
-		for (Circle possibleCircle : circles)
-			addPossibleConnection(circle, possibleCircle);
-		circle.randomize();
+	public void addRandomCircle(RandomNumberGenerator randomNumberGenerator, SimulationConfig config) {
+		Circle circle = new Circle(config);
+		int circleIndex = circles.size();
+		possibleConnections.setCircleCount(circleIndex + 1);
+		for (int i = 0; i < circleIndex; i++)
+			possibleConnections.add(circleIndex, i);
+		circle.randomize(randomNumberGenerator, config);
 		circles.add(circle);
+		cached = false;
 
-		addRandomMuscle(circle);
-		addRandomMuscle(circle);
+		addRandomMuscle(randomNumberGenerator, config, circle);
+		addRandomMuscle(randomNumberGenerator, config, circle);
 	}
 
-	public void removeRandomCircle() {
+	public void removeRandomCircle(RandomNumberGenerator randomNumberGenerator) {
 		if (circles.size() > 1) {
-			Circle circle = circles.get(AppContext.getInstance().getRandomNumberGenerator().nextInt(circles.size()));
-			circles.remove(circle);
-
-			possibleConnectionSet.removeIf(possibleConnection -> possibleConnection.contains(circle));
+			Circle circle = circles.remove(randomNumberGenerator.nextInt(circles.size()));
 
 			muscles.removeIf(muscle -> muscle.getCircle1() == circle || muscle.getCircle2() == circle);
+			cached = false;
+
+			// the indices of the following circles have shifted, so the possible connections are rebuilt
+			calculatePossibleConnections();
 		}
 	}
 
-	public void addRandomMuscle() {
-		if (!possibleConnectionSet.isEmpty()) {
-			int index = AppContext.getInstance().getRandomNumberGenerator().nextInt(possibleConnectionSet.size());
-			for (Set<Circle> possibleConnection : possibleConnectionSet)
-				if (index-- == 0) {
-					Iterator<Circle> iterator = possibleConnection.iterator();
-					Circle circle1 = iterator.next();
-					Circle circle2 = iterator.next();
-
-					removePossibleConnection(circle1, circle2);
-
-					Muscle muscle = new Muscle(circle1, circle2);
-					muscle.randomize();
-					muscles.add(muscle);
-
-					break;
-				}
+	public void addRandomMuscle(RandomNumberGenerator randomNumberGenerator, SimulationConfig config) {
+		if (!possibleConnections.isEmpty()) {
+			int index = randomNumberGenerator.nextInt(possibleConnections.size());
+			addMuscle(randomNumberGenerator, config, possibleConnections.getCircle1(index), possibleConnections.getCircle2(index));
 		}
 	}
 
-	public void addRandomMuscle(Circle circle) {
-		if (!possibleConnectionSet.isEmpty()) {
-			List<Set<Circle>> possiblePossibleConnections = new ArrayList<>();
-			for (Set<Circle> possibleConnection : possibleConnectionSet)
-				if (possibleConnection.contains(circle))
-					possiblePossibleConnections.add(possibleConnection);
-
-			if (possiblePossibleConnections.size() > 0) {
-				Set<Circle> connection = possiblePossibleConnections.get(AppContext.getInstance().getRandomNumberGenerator().nextInt(possiblePossibleConnections.size()));
-				Iterator<Circle> iterator = connection.iterator();
-				Circle circle1 = iterator.next();
-				Circle circle2 = iterator.next();
+	public void addRandomMuscle(RandomNumberGenerator randomNumberGenerator, SimulationConfig config, Circle circle) {
+		int circleIndex = circles.indexOf(circle);
+		int connectionCount = possibleConnections.getConnectionCount(circleIndex);
+		if (connectionCount > 0)
+			addMuscle(randomNumberGenerator, config, circleIndex, possibleConnections.getConnectedCircle(circleIndex, randomNumberGenerator.nextInt(connectionCount)));
+	}
 
-				removePossibleConnection(circle1, circle2);
+	private void addMuscle(RandomNumberGenerator randomNumberGenerator, SimulationConfig config, int circle1, int circle2) {
+		possibleConnections.remove(circle1, circle2);
 
-				Muscle muscle = new Muscle(circle1, circle2);
-				muscle.randomize();
-				muscles.add(muscle);
-			}
-		}
+		Muscle muscle = new Muscle(circles.get(circle1), circles.get(circle2), config);
+		muscle.randomize(randomNumberGenerator, config);
+		muscles.add(muscle);
 	}
 
-	public void removeRandomMuscle() {
+	public void removeRandomMuscle(RandomNumberGenerator randomNumberGenerator) {
 		if (!muscles.isEmpty()) {
-			Muscle muscle = muscles.get(AppContext.getInstance().getRandomNumberGenerator().nextInt(muscles.size()));
-			muscles.remove(muscle);
+			Muscle muscle = muscles.remove(randomNumberGenerator.nextInt(muscles.size()));
 
-			addPossibleConnection(muscle.getCircle1(), muscle.getCircle2());
+			possibleConnections.add(circles.indexOf(muscle.getCircle1()), circles.indexOf(muscle.getCircle2()));
 		}
 	}
 
-	public double getFitness() {
+	public double getFitness(PhysicsParameters physicsParameters) {
 		if (getOnGround())
-			return AppContext.getInstance().getCircleStartPositionBoundaries().getXMin();
+			return physicsParameters.getOnGroundFitness();
+		else if (cached)
+			// the positions were summed in the same order, so the fitness is bit-identical to a full scan
+			return positionSum.getX() / circles.size();
 		else {
 			double fitness = 0d;
 			for (Circle circle : circles)
@@ -185,6 +189,9 @@ public class Creature {
 	}
 
 	public boolean getOnGround() {
+		if (cached)
+			return groundedCircleCount == circles.size();
+
 		boolean onGround = true;
 		for (Circle circle : circles)
 			if (!circle.getOnGround()) {
@@ -197,8 +204,11 @@ public class Creature {
 	public Vector2d getPosition() {
 		// return the average position of all the circles
 		Vector2d position = new Vector2d();
-		for (Circle circle : circles)
-			position.add(circle.getPosition());
+		if (cached)
+			position.set(positionSum.getX(), positionSum.getY());
+		else
+			for (Circle circle : circles)
+				position.add(circle.getPosition());
 		position.scale(1d / circles.size());
 		return position;
 	}
@@ -0,0 +1,166 @@
+package com.weisbrja.simulation;
+
+import javax.vecmath.Vector2d;
+import java.util.List;
+
+// a picture of a creature after one step, taken by the physics thread and drawn by the view
+// the frame is reused for the next pictures, so its arrays only grow when a creature has more circles or muscles than the ones before
+public class CreatureFrame {
+
+	private double[] circlePositionsX;
+	private double[] circlePositionsY;
+	private double[] circleRadii;
+	private double[] circleFrictionPercentages;
+	private double[] muscleStartPositionsX;
+	private double[] muscleStartPositionsY;
+	private double[] muscleEndPositionsX;
+	private double[] muscleEndPositionsY;
+	private double[] muscleStrengths;
+	private boolean[] musclesExpanding;
+	private int circleCount;
+	private int muscleCount;
+	private double positionX;
+	private double positionY;
+	// the box around the circles, the muscles run between them
+	private double minX;
+	private double minY;
+	private double maxX;
+	private double maxY;
+
+	public CreatureFrame() {
+		circlePositionsX = new double[0];
+		circlePositionsY = new double[0];
+		circleRadii = new double[0];
+		circleFrictionPercentages = new double[0];
+		muscleStartPositionsX = new double[0];
+		muscleStartPositionsY = new double[0];
+		muscleEndPositionsX = new double[0];
+		muscleEndPositionsY = new double[0];
+		muscleStrengths = new double[0];
+		musclesExpanding = new boolean[0];
+	}
+
+	// take a picture of the creature in place of the previous one
+	public void update(Creature creature) {
+		List<Circle> circles = creature.getCircles();
+		circleCount = circles.size();
+		if (circleCount > circleRadii.length) {
+			circlePositionsX = new double[circleCount];
+			circlePositionsY = new double[circleCount];
+			circleRadii = new double[circleCount];
+			circleFrictionPercentages = new double[circleCount];
+		}
+		minX = Double.POSITIVE_INFINITY;
+		minY = Double.POSITIVE_INFINITY;
+		maxX = Double.NEGATIVE_INFINITY;
+		maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < circleCount; i++) {
+			Circle circle = circles.get(i);
+			circlePositionsX[i] = circle.getPosition().getX();
+			circlePositionsY[i] = circle.getPosition().getY();
+			circleRadii[i] = circle.getRadius();
+			circleFrictionPercentages[i] = circle.getFrictionPercentage();
+			minX = Math.min(minX, circlePositionsX[i] - circleRadii[i]);
+			minY = Math.min(minY, circlePositionsY[i] - circleRadii[i]);
+			maxX = Math.max(maxX, circlePositionsX[i] + circleRadii[i]);
+			maxY = Math.max(maxY, circlePositionsY[i] + circleRadii[i]);
+		}
+
+		List<Muscle> muscles = creature.getMuscles();
+		muscleCount = muscles.size();
+		if (muscleCount > muscleStrengths.length) {
+			muscleStartPositionsX = new double[muscleCount];
+			muscleStartPositionsY = new double[muscleCount];
+			muscleEndPositionsX = new double[muscleCount];
+			muscleEndPositionsY = new double[muscleCount];
+			muscleStrengths = new double[muscleCount];
+			musclesExpanding = new boolean[muscleCount];
+		}
+		for (int i = 0; i < muscleCount; i++) {
+			Muscle muscle = muscles.get(i);
+			muscleStartPositionsX[i] = muscle.getCircle1().getPosition().getX();
+			muscleStartPositionsY[i] = muscle.getCircle1().getPosition().getY();
+			muscleEndPositionsX[i] = muscle.getCircle2().getPosition().getX();
+			muscleEndPositionsY[i] = muscle.getCircle2().getPosition().getY();
+			muscleStrengths[i] = muscle.getStrength();
+			musclesExpanding[i] = muscle.getExpanding();
+		}
+
+		Vector2d position = creature.getPosition();
+		positionX = position.getX();
+		positionY = position.getY();
+	}
+
+	public int getCircleCount() {
+		return circleCount;
+	}
+
+	public double getCirclePositionX(int circle) {
+		return circlePositionsX[circle];
+	}
+
+	public double getCirclePositionY(int circle) {
+		return circlePositionsY[circle];
+	}
+
+	public double getCircleRadius(int circle) {
+		return circleRadii[circle];
+	}
+
+	public double getCircleFrictionPercentage(int circle) {
+		return circleFrictionPercentages[circle];
+	}
+
+	public int getMuscleCount() {
+		return muscleCount;
+	}
+
+	public double getMuscleStartPositionX(int muscle) {
+		return muscleStartPositionsX[muscle];
+	}
+
+	public double getMuscleStartPositionY(int muscle) {
+		return muscleStartPositionsY[muscle];
+	}
+
+	public double getMuscleEndPositionX(int muscle) {
+		return muscleEndPositionsX[muscle];
+	}
+
+	public double getMuscleEndPositionY(int muscle) {
+		return muscleEndPositionsY[muscle];
+	}
+
+	public double getMuscleStrength(int muscle) {
+		return muscleStrengths[muscle];
+	}
+
+	public boolean getMuscleExpanding(int muscle) {
+		return musclesExpanding[muscle];
+	}
+
+	// the mean position of the circles, which the camera follows
+	public double getPositionX() {
+		return positionX;
+	}
+
+	public double getPositionY() {
+		return positionY;
+	}
+
+	public double getMinX() {
+		return minX;
+	}
+
+	public double getMinY() {
+		return minY;
+	}
+
+	public double getMaxX() {
+		return maxX;
+	}
+
+	public double getMaxY() {
+		return maxY;
+	}
+}
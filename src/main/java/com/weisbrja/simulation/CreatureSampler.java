@@ -0,0 +1,7 @@
+package com.weisbrja.simulation;
+
+public interface CreatureSampler {
+
+	// return the indices of at most the given number of creatures to watch, the fitness values are indexed like the genomes, the camera follows the first creature
+	int[] sample(Genome[] genomes, double[] fitnesses, int count);
+}
@@ -0,0 +1,54 @@
+package com.weisbrja.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// a lock-free triple buffer between the physics thread and the view, the three frames are created once and reused
+// the physics thread draws into its back frame, the view draws its front frame, and the frame between them is swapped with either of them
+public class FrameBuffer<T> {
+
+	// marks the middle frame as published and not taken yet
+	private static final int publishedFlag = 4;
+	private static final int indexMask = 3;
+
+	private final Object[] frames;
+	// the index of the middle frame, together with the published flag
+	private final AtomicInteger middle;
+	// only used by the physics thread
+	private int back;
+	// only used by the view
+	private int front;
+
+	public FrameBuffer(Supplier<T> frameFactory) {
+		frames = new Object[]{frameFactory.get(), frameFactory.get(), frameFactory.get()};
+		back = 0;
+		middle = new AtomicInteger(1);
+		front = 2;
+	}
+
+	// whether the view took the last published frame, the physics thread only takes a new picture then, so it never copies frames that nobody draws
+	public boolean needsFrame() {
+		return (middle.get() & publishedFlag) == 0;
+	}
+
+	// the frame the physics thread may draw into until it publishes it
+	@SuppressWarnings("unchecked")
+	public T getBackFrame() {
+		return (T) frames[back];
+	}
+
+	// hand the back frame over to the view, the physics thread gets the frame the view does not use as its new back frame
+	public void publish() {
+		back = middle.getAndSet(back | publishedFlag) & indexMask;
+	}
+
+	// return the latest published frame, or null if no frame was published since the last call
+	// the frame belongs to the view until the next call
+	@SuppressWarnings("unchecked")
+	public T take() {
+		if ((middle.get() & publishedFlag) == 0)
+			return null;
+		front = middle.getAndSet(front) & indexMask;
+		return (T) frames[front];
+	}
+}
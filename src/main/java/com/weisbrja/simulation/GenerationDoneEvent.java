@@ -2,16 +2,24 @@ package com.weisbrja.simulation;
 
 import com.weisbrja.event.Event;
 
+import java.util.Set;
+
 public class GenerationDoneEvent implements Event {
 
 	private final int generationCount;
 	private final double bestDistance;
 	private final double medianDistance;
+	private final double[] percentiles;
+	private final double[] percentileDistances;
+	private final Set<String> species;
 
-	public GenerationDoneEvent(int generation, double bestDistance, double medianDistance) {
+	public GenerationDoneEvent(int generation, double bestDistance, double medianDistance, double[] percentiles, double[] percentileDistances, Set<String> species) {
 		this.generationCount = generation;
 		this.bestDistance = bestDistance;
 		this.medianDistance = medianDistance;
+		this.percentiles = percentiles;
+		this.percentileDistances = percentileDistances;
+		this.species = species;
 	}
 
 	public int getGenerationCount() {
@@ -25,4 +33,17 @@ public class GenerationDoneEvent implements Event {
 	public double getMedianDistance() {
 		return medianDistance;
 	}
+
+	public double[] getPercentiles() {
+		return percentiles;
+	}
+
+	public double[] getPercentileDistances() {
+		return percentileDistances;
+	}
+
+	// the species of the creatures of the generation
+	public Set<String> getSpecies() {
+		return species;
+	}
 }
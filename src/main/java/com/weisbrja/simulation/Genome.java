@@ -0,0 +1,252 @@
+package com.weisbrja.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+// the heritable parameters of a creature in flat arrays, treated as immutable once it is simulated
+public class Genome {
+
+	// gene layout: mutation rate, structural mutation rate, then every circle and then every muscle
+	private static final int headerGeneCount = 2;
+	private static final int circleGeneCount = 4;
+	private static final int muscleGeneCount = 6;
+
+	private final int circleCount;
+	private final int muscleCount;
+	private final double[] genes;
+	private final int[] muscleCircles;
+
+	private Genome(int circleCount, int muscleCount, double[] genes, int[] muscleCircles) {
+		this.circleCount = circleCount;
+		this.muscleCount = muscleCount;
+		this.genes = genes;
+		this.muscleCircles = muscleCircles;
+	}
+
+	public Genome(Creature creature) {
+		List<Circle> circles = creature.getCircles();
+		List<Muscle> muscles = creature.getMuscles();
+
+		circleCount = circles.size();
+		muscleCount = muscles.size();
+		genes = new double[headerGeneCount + circleCount * circleGeneCount + muscleCount * muscleGeneCount];
+		muscleCircles = new int[muscleCount * 2];
+
+		setMutationRate(creature.getMutationRate());
+		setStructuralMutationRate(creature.getStructuralMutationRate());
+
+		for (int i = 0; i < circleCount; i++) {
+			Circle circle = circles.get(i);
+			setFrictionPercentage(i, circle.getFrictionPercentage());
+			setRadius(i, circle.getRadius());
+			setStartPositionX(i, circle.getStartPosition().getX());
+			setStartPositionY(i, circle.getStartPosition().getY());
+		}
+
+		for (int i = 0; i < muscleCount; i++) {
+			Muscle muscle = muscles.get(i);
+			muscleCircles[i * 2] = circles.indexOf(muscle.getCircle1());
+			muscleCircles[i * 2 + 1] = circles.indexOf(muscle.getCircle2());
+			setStrength(i, muscle.getStrength());
+			setLengthPhaseX(i, muscle.getLengthPhases().getX());
+			setLengthPhaseY(i, muscle.getLengthPhases().getY());
+			setClockPhaseX(i, muscle.getClockPhases().getX());
+			setClockPhaseY(i, muscle.getClockPhases().getY());
+			setClockSpeed(i, muscle.getClockSpeed());
+		}
+	}
+
+	// read a genome written by write, e.g. by another process
+	public static Genome read(DataInput input) throws IOException {
+		int circleCount = input.readInt();
+		int muscleCount = input.readInt();
+		if (circleCount < 0 || muscleCount < 0 || muscleCount > circleCount * (circleCount - 1) / 2)
+			throw new IOException("invalid genome size: " + circleCount + " circles, " + muscleCount + " muscles");
+
+		int[] muscleCircles = new int[muscleCount * 2];
+		for (int i = 0; i < muscleCircles.length; i++) {
+			muscleCircles[i] = input.readInt();
+			if (muscleCircles[i] < 0 || muscleCircles[i] >= circleCount)
+				throw new IOException("invalid circle index: " + muscleCircles[i]);
+		}
+
+		double[] genes = new double[headerGeneCount + circleCount * circleGeneCount + muscleCount * muscleGeneCount];
+		for (int i = 0; i < genes.length; i++)
+			genes[i] = input.readDouble();
+		return new Genome(circleCount, muscleCount, genes, muscleCircles);
+	}
+
+	public void write(DataOutput output) throws IOException {
+		output.writeInt(circleCount);
+		output.writeInt(muscleCount);
+		for (int muscleCircle : muscleCircles)
+			output.writeInt(muscleCircle);
+		for (double gene : genes)
+			output.writeDouble(gene);
+	}
+
+	public Genome copy() {
+		// the topology is never changed in place, so only the genes need to be copied
+		return new Genome(circleCount, muscleCount, genes.clone(), muscleCircles);
+	}
+
+	public void adjustToGround() {
+		// find the lowest start position-y of every circle
+		double lowestStartPositionY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < circleCount; i++) {
+			double circleStartPositionY = getStartPositionY(i) + getRadius(i);
+			if (circleStartPositionY > lowestStartPositionY)
+				lowestStartPositionY = circleStartPositionY;
+		}
+
+		// adjust the creature to the ground
+		for (int i = 0; i < circleCount; i++)
+			setStartPositionY(i, getStartPositionY(i) - lowestStartPositionY);
+	}
+
+	// whether both genomes build the same creature, the mutation rates are ignored as they do not affect the physics
+	public boolean hasSamePhysics(Genome genome) {
+		if (circleCount != genome.circleCount || muscleCount != genome.muscleCount || !Arrays.equals(muscleCircles, genome.muscleCircles))
+			return false;
+
+		// compare the bits, so that only genes that are simulated the same way are equal
+		for (int i = headerGeneCount; i < genes.length; i++)
+			if (Double.doubleToLongBits(genes[i]) != Double.doubleToLongBits(genome.genes[i]))
+				return false;
+		return true;
+	}
+
+	public int getPhysicsHashCode() {
+		int hashCode = Arrays.hashCode(muscleCircles);
+		for (int i = headerGeneCount; i < genes.length; i++)
+			hashCode = 31 * hashCode + Long.hashCode(Double.doubleToLongBits(genes[i]));
+		return hashCode;
+	}
+
+	private int getCircleGene(int circle, int gene) {
+		return headerGeneCount + circle * circleGeneCount + gene;
+	}
+
+	private int getMuscleGene(int muscle, int gene) {
+		return headerGeneCount + circleCount * circleGeneCount + muscle * muscleGeneCount + gene;
+	}
+
+	public int getCircleCount() {
+		return circleCount;
+	}
+
+	public int getMuscleCount() {
+		return muscleCount;
+	}
+
+	public String getSpecies() {
+		return "S" + circleCount + "-" + muscleCount;
+	}
+
+	public double getMutationRate() {
+		return genes[0];
+	}
+
+	public void setMutationRate(double mutationRate) {
+		genes[0] = mutationRate;
+	}
+
+	public double getStructuralMutationRate() {
+		return genes[1];
+	}
+
+	public void setStructuralMutationRate(double structuralMutationRate) {
+		genes[1] = structuralMutationRate;
+	}
+
+	public double getFrictionPercentage(int circle) {
+		return genes[getCircleGene(circle, 0)];
+	}
+
+	public void setFrictionPercentage(int circle, double frictionPercentage) {
+		genes[getCircleGene(circle, 0)] = frictionPercentage;
+	}
+
+	public double getRadius(int circle) {
+		return genes[getCircleGene(circle, 1)];
+	}
+
+	public void setRadius(int circle, double radius) {
+		genes[getCircleGene(circle, 1)] = radius;
+	}
+
+	public double getStartPositionX(int circle) {
+		return genes[getCircleGene(circle, 2)];
+	}
+
+	public void setStartPositionX(int circle, double startPositionX) {
+		genes[getCircleGene(circle, 2)] = startPositionX;
+	}
+
+	public double getStartPositionY(int circle) {
+		return genes[getCircleGene(circle, 3)];
+	}
+
+	public void setStartPositionY(int circle, double startPositionY) {
+		genes[getCircleGene(circle, 3)] = startPositionY;
+	}
+
+	public int getCircle1(int muscle) {
+		return muscleCircles[muscle * 2];
+	}
+
+	public int getCircle2(int muscle) {
+		return muscleCircles[muscle * 2 + 1];
+	}
+
+	public double getStrength(int muscle) {
+		return genes[getMuscleGene(muscle, 0)];
+	}
+
+	public void setStrength(int muscle, double strength) {
+		genes[getMuscleGene(muscle, 0)] = strength;
+	}
+
+	public double getLengthPhaseX(int muscle) {
+		return genes[getMuscleGene(muscle, 1)];
+	}
+
+	public void setLengthPhaseX(int muscle, double lengthPhaseX) {
+		genes[getMuscleGene(muscle, 1)] = lengthPhaseX;
+	}
+
+	public double getLengthPhaseY(int muscle) {
+		return genes[getMuscleGene(muscle, 2)];
+	}
+
+	public void setLengthPhaseY(int muscle, double lengthPhaseY) {
+		genes[getMuscleGene(muscle, 2)] = lengthPhaseY;
+	}
+
+	public double getClockPhaseX(int muscle) {
+		return genes[getMuscleGene(muscle, 3)];
+	}
+
+	public void setClockPhaseX(int muscle, double clockPhaseX) {
+		genes[getMuscleGene(muscle, 3)] = clockPhaseX;
+	}
+
+	public double getClockPhaseY(int muscle) {
+		return genes[getMuscleGene(muscle, 4)];
+	}
+
+	public void setClockPhaseY(int muscle, double clockPhaseY) {
+		genes[getMuscleGene(muscle, 4)] = clockPhaseY;
+	}
+
+	public double getClockSpeed(int muscle) {
+		return genes[getMuscleGene(muscle, 5)];
+	}
+
+	public void setClockSpeed(int muscle, double clockSpeed) {
+		genes[getMuscleGene(muscle, 5)] = clockSpeed;
+	}
+}
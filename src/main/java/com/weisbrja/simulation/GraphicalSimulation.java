@@ -0,0 +1,147 @@
+package com.weisbrja.simulation;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.SimulationConfig;
+
+import java.util.concurrent.locks.LockSupport;
+
+// simulates the watched creatures on a thread of its own, so that neither the frame rate nor the evaluation of the population waits for it
+public class GraphicalSimulation {
+
+	// the steps per second at a graphical speed of one, the creatures used to be stepped every 10 ms
+	private static final double realTimeStepRate = 100d;
+	// the overhead is reported about once per second
+	private static final long overheadReportInterval = 1000000000L;
+
+	private final AppContext appContext;
+	private final int cycleCount;
+	// zero if the creatures are simulated as fast as possible
+	private final long stepInterval;
+	private final int watchedCreatureCount;
+	private final CreatureSampler creatureSampler;
+	private final FrameBuffer<SimulationFrame> frameBuffer;
+
+	// guarded by this, null until the first generation is handed over
+	private Genome[] genomes;
+	private double[] fitnesses;
+	private volatile boolean simulateGraphically;
+	// only used by the graphical simulation thread, the overhead is measured across the watched creatures until it is reported
+	private long reportTime;
+	private long busyTime;
+
+	public GraphicalSimulation(AppContext appContext) {
+		this.appContext = appContext;
+
+		SimulationConfig config = appContext.getConfig();
+		cycleCount = config.getSimulationCycleCount();
+		stepInterval = config.getGraphicalSpeed() > 0d ? Math.round(1000000000d / (realTimeStepRate * config.getGraphicalSpeed())) : 0L;
+		watchedCreatureCount = config.getWatchedCreatureCount();
+		creatureSampler = appContext.createCreatureSampler();
+		frameBuffer = new FrameBuffer<>(SimulationFrame::new);
+		simulateGraphically = true;
+
+		appContext.getEventBus().listenFor(SimulationModeChangedEvent.class, event -> setSimulateGraphically(event.getSimulateGraphically()));
+	}
+
+	public void start() {
+		Thread thread = new Thread(this::run, "graphical-simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// hand over the genomes of a generation and their fitness values, the next creatures are sampled from them as soon as the current ones are done
+	public synchronized void show(Genome[] genomes, double[] fitnesses) {
+		this.genomes = genomes;
+		this.fitnesses = fitnesses;
+		notifyAll();
+	}
+
+	private synchronized void setSimulateGraphically(boolean simulateGraphically) {
+		this.simulateGraphically = simulateGraphically;
+		notifyAll();
+	}
+
+	private void run() {
+		reportTime = System.nanoTime();
+		try {
+			while (true) {
+				Genome[] genomes;
+				double[] fitnesses;
+				synchronized (this) {
+					// wait while nobody watches or no generation was handed over yet, the time spent waiting is no overhead
+					if (!simulateGraphically || this.genomes == null) {
+						while (!simulateGraphically || this.genomes == null)
+							wait();
+						reportTime = System.nanoTime();
+						busyTime = 0L;
+					}
+
+					genomes = this.genomes;
+					fitnesses = this.fitnesses;
+				}
+				simulate(genomes, creatureSampler.sample(genomes, fitnesses, watchedCreatureCount));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void simulate(Genome[] genomes, int[] sample) {
+		long busyStartTime = System.nanoTime();
+		PhysicsParameters physicsParameters = appContext.getPhysicsParameters();
+		Simulator[] simulators = new Simulator[sample.length];
+		for (int i = 0; i < sample.length; i++)
+			simulators[i] = new Simulator(appContext, genomes[sample[i]]);
+		Creature followedCreature = simulators[0].getCreature();
+		appContext.getEventBus().emit(new SimulatorStartedEvent(sample[0], followedCreature.getSpecies(), followedCreature.getMutationRate(), followedCreature.getStructuralMutationRate()));
+		publishFrame(simulators);
+
+		long nextStepTime = busyStartTime;
+		for (int cycle = 0; cycle < cycleCount && simulateGraphically; cycle++) {
+			// every creature stops on its own, the others keep moving
+			boolean moving = false;
+			for (Simulator simulator : simulators)
+				if (!(physicsParameters.getStopCreaturesWhenOnGround() && simulator.getCreature().getOnGround())) {
+					simulator.step(physicsParameters);
+					moving = true;
+				}
+			if (!moving)
+				break;
+
+			// only take pictures of the creatures once the view drew the previous ones
+			if (frameBuffer.needsFrame())
+				publishFrame(simulators);
+
+			long time = System.nanoTime();
+			busyTime += time - busyStartTime;
+			if (time - reportTime >= overheadReportInterval) {
+				appContext.getEventBus().emit(new GraphicalSimulationOverheadEvent(simulators.length, busyTime, time - reportTime));
+				reportTime = time;
+				busyTime = 0L;
+			}
+
+			if (stepInterval > 0L) {
+				nextStepTime += stepInterval;
+				long delay;
+				while ((delay = nextStepTime - System.nanoTime()) > 0L)
+					LockSupport.parkNanos(delay);
+			}
+			busyStartTime = System.nanoTime();
+		}
+
+		busyTime += System.nanoTime() - busyStartTime;
+
+		// nothing is simulated while nobody watches
+		if (!simulateGraphically)
+			appContext.getEventBus().emit(new GraphicalSimulationOverheadEvent(0, 0L, 0L));
+	}
+
+	private void publishFrame(Simulator[] simulators) {
+		frameBuffer.getBackFrame().update(simulators);
+		frameBuffer.publish();
+	}
+
+	public FrameBuffer<SimulationFrame> getFrameBuffer() {
+		return frameBuffer;
+	}
+}
@@ -0,0 +1,34 @@
+package com.weisbrja.simulation;
+
+import com.weisbrja.event.Event;
+
+// how much time the graphical simulation thread spent on simulating and taking pictures of the watched creatures, in nanoseconds
+public class GraphicalSimulationOverheadEvent implements Event {
+
+	private final int watchedCreatureCount;
+	private final long busyTime;
+	private final long wallTime;
+
+	public GraphicalSimulationOverheadEvent(int watchedCreatureCount, long busyTime, long wallTime) {
+		this.watchedCreatureCount = watchedCreatureCount;
+		this.busyTime = busyTime;
+		this.wallTime = wallTime;
+	}
+
+	public int getWatchedCreatureCount() {
+		return watchedCreatureCount;
+	}
+
+	public long getBusyTime() {
+		return busyTime;
+	}
+
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	// the share of the given number of processors that watching took away from the evaluation
+	public double getProcessorShare(int processorCount) {
+		return wallTime > 0L ? (double) busyTime / wallTime / processorCount : 0d;
+	}
+}
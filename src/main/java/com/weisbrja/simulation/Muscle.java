@@ -1,6 +1,7 @@
 package com.weisbrja.simulation;
 
-import com.weisbrja.AppContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
 
 import javax.vecmath.Vector2d;
 
@@ -18,14 +19,14 @@ public class Muscle {
 	private Vector2d clockPhases;
 	private double clockSpeed;
 
-	public Muscle(Circle circle1, Circle circle2) {
+	public Muscle(Circle circle1, Circle circle2, SimulationConfig config) {
 		this.circle1 = circle1;
 		this.circle2 = circle2;
 
-		strength = (AppContext.getInstance().getMuscleStrengthBoundaries().getMin() + AppContext.getInstance().getMuscleStrengthBoundaries().getMax()) / 2d;
-		lengthPhases = new Vector2d(AppContext.getInstance().getMuscleLengthPhasesBoundaries().getMin(), AppContext.getInstance().getMuscleLengthPhasesBoundaries().getMax());
+		strength = (config.getMuscleStrengthBoundaries().getMin() + config.getMuscleStrengthBoundaries().getMax()) / 2d;
+		lengthPhases = new Vector2d(config.getMuscleLengthPhasesBoundaries().getMin(), config.getMuscleLengthPhasesBoundaries().getMax());
 		clockPhases = new Vector2d(0d, 0.5d);
-		clockSpeed = (AppContext.getInstance().getMuscleClockSpeedBoundaries().getMin() + AppContext.getInstance().getMuscleClockSpeedBoundaries().getMax()) / 2d;
+		clockSpeed = (config.getMuscleClockSpeedBoundaries().getMin() + config.getMuscleClockSpeedBoundaries().getMax()) / 2d;
 		reset();
 	}
 
@@ -43,14 +44,14 @@ public class Muscle {
 		clock = 0d;
 	}
 
-	public void randomize() {
-		strength = AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getMuscleStrengthBoundaries());
-		lengthPhases = new Vector2d(AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getMuscleLengthPhasesBoundaries()), AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getMuscleLengthPhasesBoundaries()));
-		clockPhases = new Vector2d(AppContext.getInstance().getRandomNumberGenerator().nextDouble(), AppContext.getInstance().getRandomNumberGenerator().nextDouble());
-		clockSpeed = AppContext.getInstance().getRandomNumberGenerator().getRandomRange(AppContext.getInstance().getMuscleClockSpeedBoundaries());
+	public void randomize(RandomNumberGenerator randomNumberGenerator, SimulationConfig config) {
+		strength = randomNumberGenerator.getRandomRange(config.getMuscleStrengthBoundaries());
+		lengthPhases = new Vector2d(randomNumberGenerator.getRandomRange(config.getMuscleLengthPhasesBoundaries()), randomNumberGenerator.getRandomRange(config.getMuscleLengthPhasesBoundaries()));
+		clockPhases = new Vector2d(randomNumberGenerator.nextDouble(), randomNumberGenerator.nextDouble());
+		clockSpeed = randomNumberGenerator.getRandomRange(config.getMuscleClockSpeedBoundaries());
 	}
 
-	public void update() {
+	public void update(PhysicsParameters physicsParameters) {
 		// update the target length based on the clock and the clock phases
 		if (clockPhases.getX() < clockPhases.getY())
 			if (clock >= clockPhases.getX() && clock < clockPhases.getY())
@@ -71,7 +72,7 @@ public class Muscle {
 		double distance = Math.sqrt(positionDifferenceX * positionDifferenceX + positionDifferenceY * positionDifferenceY);
 
 		if (distance > 0d) {
-			double forceScalingFactor = getForceScalingFactor(distance, targetLength);
+			double forceScalingFactor = getForceScalingFactor(distance, targetLength, physicsParameters.getMaxMuscleForce());
 
 			// apply the forces to the circles
 			Vector2d force1 = (Vector2d) circle1.getPosition().clone();
@@ -89,9 +90,9 @@ public class Muscle {
 		}
 	}
 
-	public double getForceScalingFactor(double distance, double targetLength) {
+	public double getForceScalingFactor(double distance, double targetLength, double maxMuscleForce) {
 		double forceScalingFactor = 1d - distance / targetLength;
-		return Math.min(Math.max(forceScalingFactor, -AppContext.getInstance().getMaxMuscleForce()), AppContext.getInstance().getMaxMuscleForce()) * strength;
+		return Math.min(Math.max(forceScalingFactor, -maxMuscleForce), maxMuscleForce) * strength;
 	}
 
 	public boolean getExpanding() {
@@ -121,4 +122,8 @@ public class Muscle {
 	public double getClockSpeed() {
 		return clockSpeed;
 	}
+
+	public double getClock() {
+		return clock;
+	}
 }
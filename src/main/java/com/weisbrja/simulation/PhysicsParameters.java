@@ -0,0 +1,63 @@
+package com.weisbrja.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// the parameters of the physics, injected into everything that steps creatures instead of read from a global context
+public final class PhysicsParameters {
+
+	private final boolean stopCreaturesWhenOnGround;
+	private final double gravityY;
+	private final double groundDamping;
+	private final double airFriction;
+	private final double maxMuscleForce;
+	private final double onGroundFitness;
+
+	public PhysicsParameters(boolean stopCreaturesWhenOnGround, double gravityY, double groundDamping, double airFriction, double maxMuscleForce, double onGroundFitness) {
+		this.stopCreaturesWhenOnGround = stopCreaturesWhenOnGround;
+		this.gravityY = gravityY;
+		this.groundDamping = groundDamping;
+		this.airFriction = airFriction;
+		this.maxMuscleForce = maxMuscleForce;
+		this.onGroundFitness = onGroundFitness;
+	}
+
+	public static PhysicsParameters read(DataInput input) throws IOException {
+		return new PhysicsParameters(input.readBoolean(), input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble());
+	}
+
+	public void write(DataOutput output) throws IOException {
+		output.writeBoolean(stopCreaturesWhenOnGround);
+		output.writeDouble(gravityY);
+		output.writeDouble(groundDamping);
+		output.writeDouble(airFriction);
+		output.writeDouble(maxMuscleForce);
+		output.writeDouble(onGroundFitness);
+	}
+
+	public boolean getStopCreaturesWhenOnGround() {
+		return stopCreaturesWhenOnGround;
+	}
+
+	public double getGravityY() {
+		return gravityY;
+	}
+
+	public double getGroundDamping() {
+		return groundDamping;
+	}
+
+	public double getAirFriction() {
+		return airFriction;
+	}
+
+	public double getMaxMuscleForce() {
+		return maxMuscleForce;
+	}
+
+	// the fitness of a creature that ended up lying still on the ground
+	public double getOnGroundFitness() {
+		return onGroundFitness;
+	}
+}
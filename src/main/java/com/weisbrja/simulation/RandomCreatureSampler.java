@@ -0,0 +1,32 @@
+package com.weisbrja.simulation;
+
+import com.weisbrja.RandomNumberGenerator;
+
+// watches creatures drawn uniformly from the whole generation, so that the typical creature is seen instead of the best one
+public class RandomCreatureSampler implements CreatureSampler {
+
+	// only used by the graphical simulation thread
+	private final RandomNumberGenerator randomNumberGenerator;
+
+	public RandomCreatureSampler(RandomNumberGenerator randomNumberGenerator) {
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
+
+	@Override
+	public int[] sample(Genome[] genomes, double[] fitnesses, int count) {
+		int[] indices = new int[genomes.length];
+		for (int i = 0; i < indices.length; i++)
+			indices[i] = i;
+
+		// shuffle only the front of the indices that is watched
+		int[] sample = new int[Math.min(count, genomes.length)];
+		for (int i = 0; i < sample.length; i++) {
+			int j = i + randomNumberGenerator.nextInt(indices.length - i);
+			int index = indices[j];
+			indices[j] = indices[i];
+			indices[i] = index;
+			sample[i] = index;
+		}
+		return sample;
+	}
+}
@@ -0,0 +1,35 @@
+package com.weisbrja.simulation;
+
+// the pictures of every watched creature after one step, the camera follows the first one
+// the frame is reused for the next steps, so taking a picture allocates nothing once the frame is large enough
+public class SimulationFrame {
+
+	private CreatureFrame[] creatureFrames;
+	private int creatureCount;
+
+	public SimulationFrame() {
+		creatureFrames = new CreatureFrame[0];
+	}
+
+	// take a picture of the creatures in place of the previous ones
+	public void update(Simulator[] simulators) {
+		creatureCount = simulators.length;
+		if (creatureCount > creatureFrames.length) {
+			CreatureFrame[] newCreatureFrames = new CreatureFrame[creatureCount];
+			System.arraycopy(creatureFrames, 0, newCreatureFrames, 0, creatureFrames.length);
+			for (int i = creatureFrames.length; i < creatureCount; i++)
+				newCreatureFrames[i] = new CreatureFrame();
+			creatureFrames = newCreatureFrames;
+		}
+		for (int i = 0; i < creatureCount; i++)
+			creatureFrames[i].update(simulators[i].getCreature());
+	}
+
+	public int getCreatureCount() {
+		return creatureCount;
+	}
+
+	public CreatureFrame getCreatureFrame(int creature) {
+		return creatureFrames[creature];
+	}
+}
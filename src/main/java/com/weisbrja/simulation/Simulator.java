@@ -1,35 +1,39 @@
 package com.weisbrja.simulation;
 
 import com.weisbrja.AppContext;
-import com.weisbrja.view.SimulationDrawBackgroundEvent;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
 
 public class Simulator {
 
-	private Timeline timeline;
+	private final AppContext appContext;
+	private Genome genome;
+	// the physics state of the creature, only instantiated when it is needed
 	private Creature creature;
 
 	private double fitness;
-	private double probability;
+	// whether the creature was cut off at a pruning checkpoint, then its fitness is the one it had there and not the one after the last cycle
+	private boolean pruned;
 
-	public Simulator() {
+	public Simulator(AppContext appContext) {
+		this.appContext = appContext;
 	}
 
-	public Simulator(Creature creature) {
-		this.creature = creature;
+	public Simulator(AppContext appContext, Genome genome) {
+		this.appContext = appContext;
+		this.genome = genome;
 	}
 
-	public void generateRandomCreature() {
-		creature = new Creature();
-		creature.randomize();
+	public void generateRandomCreature(RandomNumberGenerator randomNumberGenerator) {
+		SimulationConfig config = appContext.getConfig();
+		Creature creature = new Creature();
+		creature.randomize(randomNumberGenerator, config);
 
 		// generate random circles
-		int randomCircleCount = 2 + AppContext.getInstance().getRandomNumberGenerator().nextInt(4);
+		int randomCircleCount = 2 + randomNumberGenerator.nextInt(4);
 		for (int i = 0; i < randomCircleCount; i++) {
-			Circle circle = new Circle();
-			circle.randomize();
+			Circle circle = new Circle(config);
+			circle.randomize(randomNumberGenerator, config);
 			creature.getCircles().add(circle);
 		}
 		creature.adjustToGround();
@@ -37,69 +41,73 @@ public class Simulator {
 
 		// generate random muscles
 		int maxMuscleCount = randomCircleCount * (randomCircleCount - 1) / 2;
-		int randomMuscleCount = Math.min(2, AppContext.getInstance().getRandomNumberGenerator().nextInt(maxMuscleCount + 1));
+		int randomMuscleCount = Math.min(2, randomNumberGenerator.nextInt(maxMuscleCount + 1));
 		for (int i = 0; i < randomMuscleCount; i++)
-			creature.addRandomMuscle();
+			creature.addRandomMuscle(randomNumberGenerator, config);
+
+		setGenome(new Genome(creature));
 	}
 
-	private void nextSimulationStep() {
-		creature.applyForceY(AppContext.getInstance().getGravityY());
-		creature.update();
+	public void reset() {
+		// drop the physics state, so that the creature starts over the next time it is simulated
+		creature = null;
 	}
 
-	private void nextDrawStep() {
-		AppContext.getInstance().getEventBus().emit(new SimulationDrawBackgroundEvent());
-		AppContext.getInstance().getEventBus().emit(new CreatureDrawEvent(creature));
+	public void step(PhysicsParameters physicsParameters) {
+		creature.applyForceY(physicsParameters.getGravityY());
+		creature.update(physicsParameters);
 	}
 
-	public void start(int cycleCount) {
+	// return the number of steps the creature was simulated for
+	public int start(int cycleCount, PhysicsParameters physicsParameters) {
+		getCreature();
+
 		// simulate the creature as fast as possible for the given number of cycles
-		for (int i = 0; i < cycleCount; i++) {
-			if (AppContext.getInstance().getStopCreaturesWhenOnGround() && creature.getOnGround())
+		int stepCount = 0;
+		for (; stepCount < cycleCount; stepCount++) {
+			if (physicsParameters.getStopCreaturesWhenOnGround() && creature.getOnGround())
 				break;
 			else
-				nextSimulationStep();
+				step(physicsParameters);
 		}
-	}
-
-	public void startGraphically(int cycleCount) {
-		// start the timeline for the creature updates and drawing
-		timeline = new Timeline(new KeyFrame(Duration.millis(10L), actionEvent -> {
-			if (AppContext.getInstance().getStopCreaturesWhenOnGround() && creature.getOnGround()) {
-				timeline.stop();
-				AppContext.getInstance().getEventBus().emit(new SimulatorDoneEvent());
-			} else {
-				nextSimulationStep();
-				nextDrawStep();
-			}
-		}));
-		timeline.setCycleCount(cycleCount);
-		timeline.setOnFinished(actionEvent -> AppContext.getInstance().getEventBus().emit(new SimulatorDoneEvent()));
-		timeline.play();
-		AppContext.getInstance().getEventBus().emit(new SimulatorStartedEvent(creature.getSpecies(), creature.getMutationRate(), creature.getStructuralMutationRate()));
+		calculateFitness(physicsParameters);
+		return stepCount;
 	}
 
 	public Creature getCreature() {
+		if (creature == null)
+			creature = new Creature(genome);
 		return creature;
 	}
 
-	public void setCreature(Creature creature) {
-		this.creature = creature;
+	public Genome getGenome() {
+		return genome;
 	}
 
-	public void calculateFitness() {
-		fitness = creature.getFitness();
+	public void setGenome(Genome genome) {
+		this.genome = genome;
+		creature = null;
+	}
+
+	public void calculateFitness(PhysicsParameters physicsParameters) {
+		fitness = creature.getFitness(physicsParameters);
+		pruned = false;
 	}
 
 	public double getFitness() {
 		return fitness;
 	}
 
-	public double getProbability() {
-		return probability;
+	public void setFitness(double fitness) {
+		setFitness(fitness, false);
+	}
+
+	public void setFitness(double fitness, boolean pruned) {
+		this.fitness = fitness;
+		this.pruned = pruned;
 	}
 
-	public void setProbability(double probability) {
-		this.probability = probability;
+	public boolean getPruned() {
+		return pruned;
 	}
 }
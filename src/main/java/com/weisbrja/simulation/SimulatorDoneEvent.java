@@ -1,7 +0,0 @@
-package com.weisbrja.simulation;
-
-import com.weisbrja.event.Event;
-
-public class SimulatorDoneEvent implements Event {
-
-}
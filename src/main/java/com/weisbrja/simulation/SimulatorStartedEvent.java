@@ -4,16 +4,23 @@ import com.weisbrja.event.Event;
 
 public class SimulatorStartedEvent implements Event {
 
+	private final int creatureIndex;
 	private final String species;
 	private final double mutationRate;
 	private final double structuralMutationRate;
 
-	public SimulatorStartedEvent(String species, double mutationRate, double structuralMutationRate) {
+	public SimulatorStartedEvent(int creatureIndex, String species, double mutationRate, double structuralMutationRate) {
+		this.creatureIndex = creatureIndex;
 		this.species = species;
 		this.mutationRate = mutationRate;
 		this.structuralMutationRate = structuralMutationRate;
 	}
 
+	// the index of the creature in its generation
+	public int getCreatureIndex() {
+		return creatureIndex;
+	}
+
 	public String getSpecies() {
 		return species;
 	}
@@ -0,0 +1,39 @@
+package com.weisbrja.simulation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// watches the fittest creature of every species, the species with the fittest creatures first
+public class SpeciesCreatureSampler implements CreatureSampler {
+
+	private final CreatureSampler bestCreatureSampler;
+
+	public SpeciesCreatureSampler() {
+		bestCreatureSampler = new BestCreatureSampler();
+	}
+
+	@Override
+	public int[] sample(Genome[] genomes, double[] fitnesses, int count) {
+		// find the index of the fittest creature of every species
+		Map<String, Integer> bestIndexMap = new HashMap<>();
+		for (int i = 0; i < genomes.length; i++)
+			bestIndexMap.merge(genomes[i].getSpecies(), i, (bestIndex, index) -> fitnesses[index] > fitnesses[bestIndex] ? index : bestIndex);
+
+		int[] bestIndices = new int[bestIndexMap.size()];
+		Genome[] bestGenomes = new Genome[bestIndices.length];
+		double[] bestFitnesses = new double[bestIndices.length];
+		int speciesIndex = 0;
+		for (int bestIndex : bestIndexMap.values()) {
+			bestIndices[speciesIndex] = bestIndex;
+			bestGenomes[speciesIndex] = genomes[bestIndex];
+			bestFitnesses[speciesIndex] = fitnesses[bestIndex];
+			speciesIndex++;
+		}
+
+		// choose between the species by their fittest creatures
+		int[] sample = bestCreatureSampler.sample(bestGenomes, bestFitnesses, count);
+		for (int i = 0; i < sample.length; i++)
+			sample[i] = bestIndices[sample[i]];
+		return sample;
+	}
+}
@@ -1,11 +1,14 @@
 package com.weisbrja.view;
 
 import com.weisbrja.AppContext;
+import com.weisbrja.population.EvaluationStatistics;
+import com.weisbrja.population.GenerationEvaluatedEvent;
 import com.weisbrja.simulation.GenerationDoneEvent;
+import com.weisbrja.simulation.GraphicalSimulation;
+import com.weisbrja.simulation.GraphicalSimulationOverheadEvent;
 import com.weisbrja.simulation.SimulationModeChangedEvent;
-import com.weisbrja.simulation.SimulatorDoneEvent;
 import com.weisbrja.simulation.SimulatorStartedEvent;
-import javafx.application.Platform;
+import javafx.animation.AnimationTimer;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -13,34 +16,34 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 public class MainView extends Pane {
 
 	private boolean simulateGraphically;
-	private int creatureCount;
+	// written by the simulation threads, read by the view once per frame, so the cost of the labels does not depend on how fast events arrive
+	private final AtomicReference<ViewStatistics> viewStatistics;
 
-	public MainView() {
+	public MainView(GraphicalSimulation graphicalSimulation) {
 		Font font = Font.getDefault();
 
-		SimulationCanvas simulationCanvas = new SimulationCanvas();
+		SimulationCanvas simulationCanvas = new SimulationCanvas(graphicalSimulation.getFrameBuffer());
 
 		simulateGraphically = true;
+		viewStatistics = new AtomicReference<>(new ViewStatistics());
 		String simulationModeString = "Turn graphical ";
 		Button simulationModeButton = new Button(simulationModeString + "off");
 		simulationModeButton.setDefaultButton(true);
 		simulationModeButton.setFont(font);
 		simulationModeButton.setOnAction(actionEvent -> {
-			simulationModeButton.setDisable(true);
-
 			// flip the simulate graphically variable
 			simulateGraphically = !simulateGraphically;
 
 			simulationModeButton.setText(simulationModeString + (simulateGraphically ? "off" : "on"));
 
-			// change the simulation mode if simulating graphically
-			if (!simulateGraphically)
-				AppContext.getInstance().getEventBus().emit(new SimulationModeChangedEvent(simulateGraphically));
+			// the graphical simulation pauses or resumes right away, the evaluation of the population does not depend on it
+			AppContext.getInstance().getEventBus().emit(new SimulationModeChangedEvent(simulateGraphically));
 		});
-		AppContext.getInstance().getEventBus().emit(new SimulationModeChangedEvent(simulateGraphically));
 
 		String creatureCountString = "Creature: ";
 		Label creatureCountLabel = new Label(creatureCountString + 0);
@@ -70,6 +73,23 @@ public class MainView extends Pane {
 		Label medianFitnessLabel = new Label(medianFitnessString + Double.NEGATIVE_INFINITY);
 		medianFitnessLabel.setFont(font);
 
+		String percentileFitnessString = "Fitness percentiles: ";
+		Label percentileFitnessLabel = new Label(percentileFitnessString);
+		percentileFitnessLabel.setFont(font);
+
+		String evaluationTimeString = "Evaluation time: ";
+		Label evaluationTimeLabel = new Label(evaluationTimeString);
+		evaluationTimeLabel.setFont(font);
+
+		String workerUtilisationString = "Worker utilisation: ";
+		Label workerUtilisationLabel = new Label(workerUtilisationString);
+		workerUtilisationLabel.setFont(font);
+
+		String watchingOverheadString = "Watching overhead: ";
+		Label watchingOverheadLabel = new Label(watchingOverheadString);
+		watchingOverheadLabel.setFont(font);
+		int processorCount = Runtime.getRuntime().availableProcessors();
+
 		VBox vBox = new VBox();
 		vBox.setSpacing(10d);
 		vBox.setPadding(new Insets(10d, 10d, 10d, 10d));
@@ -81,32 +101,64 @@ public class MainView extends Pane {
 				structuralMutationRateLabel,
 				generationCountLabel,
 				bestFitnessLabel,
-				medianFitnessLabel
+				medianFitnessLabel,
+				percentileFitnessLabel,
+				evaluationTimeLabel,
+				workerUtilisationLabel,
+				watchingOverheadLabel
 		);
 
 		getChildren().addAll(simulationCanvas, vBox);
 
-		AppContext.getInstance().getEventBus().listenFor(SimulatorDoneEvent.class, event -> Platform.runLater(() -> {
-			Platform.runLater(() -> creatureCountLabel.setText(creatureCountString + creatureCount));
-			creatureCount++;
-		}));
-		AppContext.getInstance().getEventBus().listenFor(SimulatorStartedEvent.class, event -> Platform.runLater(() -> {
-			speciesLabel.setText(speciesString + event.getSpecies());
-			mutationRateLabel.setText(mutationRateString + event.getMutationRate());
-			structuralMutationRateLabel.setText(structuralMutationRateString + event.getStructuralMutationRate());
-		}));
-		AppContext.getInstance().getEventBus().listenFor(GenerationDoneEvent.class, event -> {
-			creatureCount = 0;
-			if (simulationModeButton.isDisabled()) {
-				simulationModeButton.setDisable(false);
-				AppContext.getInstance().getEventBus().emit(new SimulationModeChangedEvent(simulateGraphically));
+		AppContext.getInstance().getEventBus().listenFor(SimulatorStartedEvent.class, event -> viewStatistics.updateAndGet(statistics -> statistics.withSimulatorStarted(event)));
+		AppContext.getInstance().getEventBus().listenFor(GenerationEvaluatedEvent.class, event -> viewStatistics.updateAndGet(statistics -> statistics.withGenerationEvaluated(event.getEvaluationStatistics())));
+		AppContext.getInstance().getEventBus().listenFor(GenerationDoneEvent.class, event -> viewStatistics.updateAndGet(statistics -> statistics.withGenerationDone(event)));
+		AppContext.getInstance().getEventBus().listenFor(GraphicalSimulationOverheadEvent.class, event -> viewStatistics.updateAndGet(statistics -> statistics.withGraphicalSimulationOverhead(event)));
+
+		// show the latest statistics at most once per frame, only the labels whose values changed are set
+		new AnimationTimer() {
+
+			private ViewStatistics shownViewStatistics = new ViewStatistics();
+
+			@Override
+			public void handle(long now) {
+				ViewStatistics statistics = viewStatistics.get();
+				if (statistics == shownViewStatistics)
+					return;
+
+				SimulatorStartedEvent simulatorStartedEvent = statistics.getSimulatorStartedEvent();
+				if (simulatorStartedEvent != shownViewStatistics.getSimulatorStartedEvent()) {
+					creatureCountLabel.setText(creatureCountString + simulatorStartedEvent.getCreatureIndex());
+					speciesLabel.setText(speciesString + simulatorStartedEvent.getSpecies());
+					mutationRateLabel.setText(mutationRateString + simulatorStartedEvent.getMutationRate());
+					structuralMutationRateLabel.setText(structuralMutationRateString + simulatorStartedEvent.getStructuralMutationRate());
+				}
+
+				EvaluationStatistics evaluationStatistics = statistics.getEvaluationStatistics();
+				if (evaluationStatistics != shownViewStatistics.getEvaluationStatistics()) {
+					evaluationTimeLabel.setText(evaluationTimeString + evaluationStatistics.getWallTime() / 1000000L + " ms");
+					workerUtilisationLabel.setText(workerUtilisationString + Math.round(evaluationStatistics.getMeanWorkerUtilisation() * 100d) + " %");
+				}
+
+				// the share of the processors that simulating and taking pictures of the watched creatures costs the evaluation
+				GraphicalSimulationOverheadEvent graphicalSimulationOverheadEvent = statistics.getGraphicalSimulationOverheadEvent();
+				if (graphicalSimulationOverheadEvent != shownViewStatistics.getGraphicalSimulationOverheadEvent())
+					watchingOverheadLabel.setText(watchingOverheadString + graphicalSimulationOverheadEvent.getWatchedCreatureCount() + " creatures, " + String.format("%.2f", graphicalSimulationOverheadEvent.getProcessorShare(processorCount) * 100d) + " % of " + processorCount + " processors");
+
+				GenerationDoneEvent generationDoneEvent = statistics.getGenerationDoneEvent();
+				if (generationDoneEvent != shownViewStatistics.getGenerationDoneEvent()) {
+					generationCountLabel.setText(generationCountString + generationDoneEvent.getGenerationCount());
+					bestFitnessLabel.setText(bestFitnessString + generationDoneEvent.getBestDistance());
+					medianFitnessLabel.setText(medianFitnessString + generationDoneEvent.getMedianDistance());
+
+					StringBuilder percentileFitnessText = new StringBuilder(percentileFitnessString);
+					for (int i = 0; i < generationDoneEvent.getPercentiles().length; i++)
+						percentileFitnessText.append(i > 0 ? ", " : "").append("p").append(Math.round(generationDoneEvent.getPercentiles()[i] * 100d)).append(" ").append(generationDoneEvent.getPercentileDistances()[i]);
+					percentileFitnessLabel.setText(percentileFitnessText.toString());
+				}
+
+				shownViewStatistics = statistics;
 			}
-			Platform.runLater(() -> {
-				creatureCountLabel.setText(creatureCountString + creatureCount);
-				generationCountLabel.setText(generationCountString + event.getGenerationCount());
-				bestFitnessLabel.setText(bestFitnessString + event.getBestDistance());
-				medianFitnessLabel.setText(medianFitnessString + event.getMedianDistance());
-			});
-		});
+		}.start();
 	}
 }
@@ -1,94 +1,311 @@
 package com.weisbrja.view;
 
 import com.weisbrja.AppContext;
-import com.weisbrja.simulation.Circle;
-import com.weisbrja.simulation.CreatureDrawEvent;
-import com.weisbrja.simulation.Muscle;
+import com.weisbrja.simulation.Boundary2d;
+import com.weisbrja.simulation.CreatureFrame;
+import com.weisbrja.simulation.FrameBuffer;
+import com.weisbrja.simulation.SimulationFrame;
+import javafx.animation.AnimationTimer;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 
-import javax.vecmath.Vector2d;
+import java.util.Arrays;
 
 public class SimulationCanvas extends Pane {
 
+	// the muscle strengths and circle frictions are drawn with this many alpha and grayscale levels, so that every colour is created once
+	private static final int colorLevelCount = 32;
+	private static final double stripeWidth = 100d;
+	private static final double startingLineWidth = 2d;
+	private static final double expandingMuscleWidth = 8d;
+	private static final double contractingMuscleWidth = 12d;
+	// the creatures that the camera does not follow are drawn translucent behind the followed one
+	private static final double sampledCreatureAlpha = 0.4d;
+	private static final double cameraPositionOffsetX = 300d;
+	private static final double cameraPositionOffsetY = 600d;
+
 	private final Canvas canvas;
+	private final GraphicsContext graphicsContext;
+
+	private final Color skyColor;
+	private final Color stripeColor;
+	private final Color startingLineColor;
+	private final Color groundColor;
+	// the expanding muscles use the first half of the palette, the contracting ones the second
+	private final Color[] musclePalette;
+	private final Color[] circlePalette;
+	private final double muscleStrengthMin;
+	private final double muscleStrengthRange;
+	// the sky with its stripes, two stripe periods wider than the canvas, so that it can be scrolled by drawing a part of it
+	private final WritableImage skyImage;
+
+	// the muscles and circles of the drawn creatures sorted by their colour, reused for every frame
+	private final int[] muscleColorStarts;
+	private final int[] circleColorStarts;
+	private int[] muscleCreatures;
+	private int[] muscleIndices;
+	private int[] muscleColors;
+	private int[] circleCreatures;
+	private int[] circleIndices;
+	private int[] circleColors;
+	private int[] sortedMuscles;
+	private int[] sortedCircles;
 
-	private final Vector2d cameraPosition;
-	private final Vector2d cameraPositionOffset;
+	private double cameraPositionX;
+	private double cameraPositionY;
+	// the whole pixel camera position the canvas was drawn with, not a number until the first frame is drawn
+	private double drawnCameraPositionX;
+	private double drawnCameraPositionY;
+	// the area of the canvas that the last creatures were drawn on
+	private double drawnMinX;
+	private double drawnMinY;
+	private double drawnMaxX;
+	private double drawnMaxY;
 
-	public SimulationCanvas() {
+	public SimulationCanvas(FrameBuffer<SimulationFrame> frameBuffer) {
 		canvas = new Canvas(1920d, 1080d);
+		graphicsContext = canvas.getGraphicsContext2D();
 		getChildren().add(canvas);
 
-		cameraPositionOffset = new Vector2d(300d, 600d);
-		cameraPosition = (Vector2d) cameraPositionOffset.clone();
-		cameraPosition.scale(-1d);
+		cameraPositionX = -cameraPositionOffsetX;
+		cameraPositionY = -cameraPositionOffsetY;
+		drawnCameraPositionX = Double.NaN;
+		drawnCameraPositionY = Double.NaN;
+
+		skyColor = Color.rgb(60, 180, 255);
+		stripeColor = Color.rgb(50, 150, 200);
+		startingLineColor = Color.rgb(200, 0, 0);
+		groundColor = Color.rgb(30, 130, 0);
+
+		double alphaPercentageStart = 50d / 255d;
+		double alphaPercentageEnd = 1d;
+		double grayScalePercentageStart = 1d;
+		double grayScalePercentageEnd = 0d;
+		musclePalette = new Color[2 * colorLevelCount];
+		circlePalette = new Color[colorLevelCount];
+		for (int i = 0; i < colorLevelCount; i++) {
+			double level = (double) i / (colorLevelCount - 1);
+			double alphaPercentage = alphaPercentageStart + (alphaPercentageEnd - alphaPercentageStart) * level;
+			musclePalette[i] = Color.rgb(200, 50, 50, alphaPercentage);
+			musclePalette[colorLevelCount + i] = Color.rgb(50, 50, 200, alphaPercentage);
+			double grayScalePercentage = grayScalePercentageStart + (grayScalePercentageEnd - grayScalePercentageStart) * level;
+			circlePalette[i] = Color.color(grayScalePercentage, grayScalePercentage, grayScalePercentage);
+		}
+		Boundary2d muscleStrengthBoundaries = AppContext.getInstance().getConfig().getMuscleStrengthBoundaries();
+		muscleStrengthMin = muscleStrengthBoundaries.getMin();
+		muscleStrengthRange = muscleStrengthBoundaries.getMax() - muscleStrengthBoundaries.getMin();
+
+		skyImage = createSkyImage();
+
+		muscleColorStarts = new int[musclePalette.length + 1];
+		circleColorStarts = new int[circlePalette.length + 1];
+		muscleCreatures = new int[0];
+		muscleIndices = new int[0];
+		muscleColors = new int[0];
+		circleCreatures = new int[0];
+		circleIndices = new int[0];
+		circleColors = new int[0];
+		sortedMuscles = new int[0];
+		sortedCircles = new int[0];
+
+		// draw the latest frame of the physics thread once per pulse, the canvas keeps showing the last one until a new one is published
+		new AnimationTimer() {
 
-		AppContext.getInstance().getEventBus().listenFor(SimulationDrawBackgroundEvent.class, event -> handleDrawBackground());
-		AppContext.getInstance().getEventBus().listenFor(CreatureDrawEvent.class, this::handleCreatureDraw);
+			@Override
+			public void handle(long now) {
+				SimulationFrame simulationFrame = frameBuffer.take();
+				if (simulationFrame != null)
+					draw(simulationFrame);
+			}
+		}.start();
 	}
 
-	private void handleDrawBackground() {
-		GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
+	private WritableImage createSkyImage() {
+		Canvas skyCanvas = new Canvas(canvas.getWidth() + 4d * stripeWidth, canvas.getHeight());
+		GraphicsContext skyGraphicsContext = skyCanvas.getGraphicsContext2D();
 
-		// draw the blue sky
-		graphicsContext.setFill(Color.rgb(60, 180, 255));
-		graphicsContext.fillRect(0d, 0d, canvas.getWidth(), canvas.getHeight());
+		// draw the blue sky with a stripe in the second half of every period
+		skyGraphicsContext.setFill(skyColor);
+		skyGraphicsContext.fillRect(0d, 0d, skyCanvas.getWidth(), skyCanvas.getHeight());
+		skyGraphicsContext.setFill(stripeColor);
+		for (double i = stripeWidth; i < skyCanvas.getWidth(); i += 2d * stripeWidth)
+			skyGraphicsContext.fillRect(i, 0d, stripeWidth, skyCanvas.getHeight());
 
-		graphicsContext.setFill(Color.rgb(50, 150, 200));
-		double width = 100d;
-		for (double i = -cameraPosition.getX() % (2d * width) - width; i <= canvas.getWidth(); i += 2d * width) {
-			graphicsContext.fillRect(i, 0d, width, canvas.getHeight());
+		return skyCanvas.snapshot(null, null);
+	}
+
+	private void draw(SimulationFrame simulationFrame) {
+		// draw on whole pixels, so that the sky image is copied without filtering and a resting camera leaves the background untouched
+		double cameraX = Math.rint(cameraPositionX);
+		double cameraY = Math.rint(cameraPositionY);
+
+		// the widest muscle reaches half its width beyond the circles, one more pixel covers the antialiasing
+		double margin = contractingMuscleWidth / 2d + 1d;
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < simulationFrame.getCreatureCount(); i++) {
+			CreatureFrame creatureFrame = simulationFrame.getCreatureFrame(i);
+			minX = Math.min(minX, Math.floor(creatureFrame.getMinX() - cameraX - margin));
+			minY = Math.min(minY, Math.floor(creatureFrame.getMinY() - cameraY - margin));
+			maxX = Math.max(maxX, Math.ceil(creatureFrame.getMaxX() - cameraX + margin));
+			maxY = Math.max(maxY, Math.ceil(creatureFrame.getMaxY() - cameraY + margin));
 		}
 
+		// the background only has to be repaired where the last creatures were and where these will be, unless the camera moved
+		if (cameraX == drawnCameraPositionX && cameraY == drawnCameraPositionY)
+			drawBackground(cameraX, cameraY, Math.min(minX, drawnMinX), Math.min(minY, drawnMinY), Math.max(maxX, drawnMaxX), Math.max(maxY, drawnMaxY));
+		else
+			drawBackground(cameraX, cameraY, 0d, 0d, canvas.getWidth(), canvas.getHeight());
+
+		// the sampled creatures are drawn together, so that a colour is only set once for all of them
+		graphicsContext.setGlobalAlpha(sampledCreatureAlpha);
+		drawCreatures(simulationFrame, 1, simulationFrame.getCreatureCount(), cameraX, cameraY);
+		graphicsContext.setGlobalAlpha(1d);
+		drawCreatures(simulationFrame, 0, 1, cameraX, cameraY);
+
+		drawnCameraPositionX = cameraX;
+		drawnCameraPositionY = cameraY;
+		drawnMinX = minX;
+		drawnMinY = minY;
+		drawnMaxX = maxX;
+		drawnMaxY = maxY;
+
+		// update the camera position, it follows the first creature
+		CreatureFrame creatureFrame = simulationFrame.getCreatureFrame(0);
+		cameraPositionX += (creatureFrame.getPositionX() - cameraPositionOffsetX - cameraPositionX) * 0.02d;
+		cameraPositionY += (creatureFrame.getPositionY() - cameraPositionOffsetY - cameraPositionY) * 0.02d;
+	}
+
+	private void drawBackground(double cameraX, double cameraY, double minX, double minY, double maxX, double maxY) {
+		minX = Math.max(minX, 0d);
+		minY = Math.max(minY, 0d);
+		maxX = Math.min(maxX, canvas.getWidth());
+		maxY = Math.min(maxY, canvas.getHeight());
+		if (minX >= maxX || minY >= maxY)
+			return;
+
+		// copy the sky, the image starts one stripe period before the first visible one
+		double skyImageX = -cameraX % (2d * stripeWidth) - 2d * stripeWidth;
+		graphicsContext.drawImage(skyImage, minX - skyImageX, minY, maxX - minX, maxY - minY, minX, minY, maxX - minX, maxY - minY);
+
 		// draw the starting line
-		graphicsContext.setStroke(Color.rgb(200, 0, 0));
-		graphicsContext.setLineWidth(2d);
-		graphicsContext.beginPath();
-		graphicsContext.moveTo(-cameraPosition.getX(), 0d);
-		graphicsContext.lineTo(-cameraPosition.getX(), canvas.getHeight());
-		graphicsContext.stroke();
+		double startingLineMinX = Math.max(minX, -cameraX - startingLineWidth / 2d);
+		double startingLineMaxX = Math.min(maxX, -cameraX + startingLineWidth / 2d);
+		if (startingLineMinX < startingLineMaxX) {
+			graphicsContext.setFill(startingLineColor);
+			graphicsContext.fillRect(startingLineMinX, minY, startingLineMaxX - startingLineMinX, maxY - minY);
+		}
 
 		// draw the green ground
-		graphicsContext.setFill(Color.rgb(30, 130, 0));
-		graphicsContext.fillRect(0d, -cameraPosition.getY(), canvas.getWidth(), canvas.getHeight());
+		double groundMinY = Math.max(minY, -cameraY);
+		if (groundMinY < maxY) {
+			graphicsContext.setFill(groundColor);
+			graphicsContext.fillRect(minX, groundMinY, maxX - minX, maxY - groundMinY);
+		}
 	}
 
-	private void handleCreatureDraw(CreatureDrawEvent creatureDrawEvent) {
-		GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
-
-		// draw the muscles
-		for (int i = creatureDrawEvent.getCreature().getMuscles().size() - 1; i >= 0; i--) {
-			Muscle muscle = creatureDrawEvent.getCreature().getMuscles().get(i);
-			double alphaPercentageStart = 50d / 255d;
-			double alphaPercentageEnd = 1d;
-			double alphaPercentage = alphaPercentageStart + (alphaPercentageEnd - alphaPercentageStart) / (AppContext.getInstance().getMuscleStrengthBoundaries().getMax() - AppContext.getInstance().getMuscleStrengthBoundaries().getMin()) * (muscle.getStrength() - AppContext.getInstance().getMuscleStrengthBoundaries().getMin());
-			if (muscle.getExpanding())
-				graphicsContext.setStroke(Color.rgb(200, 50, 50, alphaPercentage));
-			else
-				graphicsContext.setStroke(Color.rgb(50, 50, 200, alphaPercentage));
-			graphicsContext.setLineWidth(muscle.getExpanding() ? 8d : 12d);
+	private void drawCreatures(SimulationFrame simulationFrame, int from, int to, double cameraX, double cameraY) {
+		// draw the muscles, one path per colour
+		int muscleCount = 0;
+		for (int i = from; i < to; i++)
+			muscleCount += simulationFrame.getCreatureFrame(i).getMuscleCount();
+		if (muscleColors.length < muscleCount) {
+			muscleCreatures = new int[muscleCount];
+			muscleIndices = new int[muscleCount];
+			muscleColors = new int[muscleCount];
+			sortedMuscles = new int[muscleCount];
+		}
+		int muscleCursor = 0;
+		for (int i = from; i < to; i++)
+			for (int j = 0; j < simulationFrame.getCreatureFrame(i).getMuscleCount(); j++) {
+				muscleCreatures[muscleCursor] = i;
+				muscleIndices[muscleCursor] = j;
+				muscleColors[muscleCursor] = getMuscleColor(simulationFrame.getCreatureFrame(i), j);
+				muscleCursor++;
+			}
+		sortByColor(muscleColors, muscleCount, muscleColorStarts, sortedMuscles);
+
+		for (int color = 0; color < musclePalette.length; color++) {
+			int start = muscleColorStarts[color];
+			int end = muscleColorStarts[color + 1];
+			if (start == end)
+				continue;
+
+			graphicsContext.setStroke(musclePalette[color]);
+			graphicsContext.setLineWidth(color < colorLevelCount ? expandingMuscleWidth : contractingMuscleWidth);
 			graphicsContext.beginPath();
-			graphicsContext.moveTo(muscle.getCircle1().getPosition().getX() - cameraPosition.getX(), muscle.getCircle1().getPosition().getY() - cameraPosition.getY());
-			graphicsContext.lineTo(muscle.getCircle2().getPosition().getX() - cameraPosition.getX(), muscle.getCircle2().getPosition().getY() - cameraPosition.getY());
+			for (int j = start; j < end; j++) {
+				CreatureFrame creatureFrame = simulationFrame.getCreatureFrame(muscleCreatures[sortedMuscles[j]]);
+				int muscle = muscleIndices[sortedMuscles[j]];
+				graphicsContext.moveTo(creatureFrame.getMuscleStartPositionX(muscle) - cameraX, creatureFrame.getMuscleStartPositionY(muscle) - cameraY);
+				graphicsContext.lineTo(creatureFrame.getMuscleEndPositionX(muscle) - cameraX, creatureFrame.getMuscleEndPositionY(muscle) - cameraY);
+			}
 			graphicsContext.stroke();
 		}
 
-		// draw the circles
-		for (int i = creatureDrawEvent.getCreature().getCircles().size() - 1; i >= 0; i--) {
-			Circle circle = creatureDrawEvent.getCreature().getCircles().get(i);
-			double grayScalePercentageStart = 1d;
-			double grayScalePercentageEnd = 0d;
-			double grayScalePercentage = grayScalePercentageStart + (grayScalePercentageEnd - grayScalePercentageStart) * circle.getFrictionPercentage();
-			graphicsContext.setFill(Color.color(grayScalePercentage, grayScalePercentage, grayScalePercentage));
-			graphicsContext.fillOval(circle.getPosition().getX() - circle.getRadius() - cameraPosition.getX(), circle.getPosition().getY() - circle.getRadius() - cameraPosition.getY(), circle.getDiameter(), circle.getDiameter());
+		// draw the circles, the fill only changes between the colours
+		int circleCount = 0;
+		for (int i = from; i < to; i++)
+			circleCount += simulationFrame.getCreatureFrame(i).getCircleCount();
+		if (circleColors.length < circleCount) {
+			circleCreatures = new int[circleCount];
+			circleIndices = new int[circleCount];
+			circleColors = new int[circleCount];
+			sortedCircles = new int[circleCount];
+		}
+		int circleCursor = 0;
+		for (int i = from; i < to; i++)
+			for (int j = 0; j < simulationFrame.getCreatureFrame(i).getCircleCount(); j++) {
+				circleCreatures[circleCursor] = i;
+				circleIndices[circleCursor] = j;
+				circleColors[circleCursor] = getColorLevel(simulationFrame.getCreatureFrame(i).getCircleFrictionPercentage(j));
+				circleCursor++;
+			}
+		sortByColor(circleColors, circleCount, circleColorStarts, sortedCircles);
+
+		for (int color = 0; color < circlePalette.length; color++) {
+			int start = circleColorStarts[color];
+			int end = circleColorStarts[color + 1];
+			if (start == end)
+				continue;
+
+			graphicsContext.setFill(circlePalette[color]);
+			for (int j = start; j < end; j++) {
+				CreatureFrame creatureFrame = simulationFrame.getCreatureFrame(circleCreatures[sortedCircles[j]]);
+				int circle = circleIndices[sortedCircles[j]];
+				double radius = creatureFrame.getCircleRadius(circle);
+				graphicsContext.fillOval(creatureFrame.getCirclePositionX(circle) - radius - cameraX, creatureFrame.getCirclePositionY(circle) - radius - cameraY, 2d * radius, 2d * radius);
+			}
 		}
+	}
+
+	private int getMuscleColor(CreatureFrame creatureFrame, int muscle) {
+		int level = getColorLevel((creatureFrame.getMuscleStrength(muscle) - muscleStrengthMin) / muscleStrengthRange);
+		return creatureFrame.getMuscleExpanding(muscle) ? level : colorLevelCount + level;
+	}
+
+	private static int getColorLevel(double percentage) {
+		return Math.max(0, Math.min(colorLevelCount - 1, (int) Math.round(percentage * (colorLevelCount - 1))));
+	}
+
+	// a counting sort of the elements by their colours, afterwards the elements of a colour reach from its start to the start of the next colour
+	private static void sortByColor(int[] colors, int count, int[] colorStarts, int[] sorted) {
+		Arrays.fill(colorStarts, 0);
+		for (int i = 0; i < count; i++)
+			colorStarts[colors[i] + 1]++;
+		for (int i = 1; i < colorStarts.length; i++)
+			colorStarts[i] += colorStarts[i - 1];
 
-		// update the camera position
-		Vector2d cameraTargetPosition = (Vector2d) creatureDrawEvent.getCreature().getPosition().clone();
-		cameraTargetPosition.sub(cameraPositionOffset);
-		cameraPosition.interpolate(cameraTargetPosition, 0.02d);
+		// placing the elements moves every start to the start of the next colour, so shift them back afterwards
+		for (int i = 0; i < count; i++)
+			sorted[colorStarts[colors[i]]++] = i;
+		for (int i = colorStarts.length - 1; i > 0; i--)
+			colorStarts[i] = colorStarts[i - 1];
+		colorStarts[0] = 0;
 	}
 }
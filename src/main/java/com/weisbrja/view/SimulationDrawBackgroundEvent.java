@@ -1,7 +0,0 @@
-package com.weisbrja.view;
-
-import com.weisbrja.event.Event;
-
-public class SimulationDrawBackgroundEvent implements Event {
-
-}
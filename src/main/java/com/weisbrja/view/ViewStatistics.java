@@ -0,0 +1,62 @@
+package com.weisbrja.view;
+
+import com.weisbrja.population.EvaluationStatistics;
+import com.weisbrja.simulation.GenerationDoneEvent;
+import com.weisbrja.simulation.GraphicalSimulationOverheadEvent;
+import com.weisbrja.simulation.SimulatorStartedEvent;
+
+// the values shown next to the simulation, every change creates a new snapshot, so that the view always reads a consistent set of values
+public class ViewStatistics {
+
+	// null until the first simulator started
+	private final SimulatorStartedEvent simulatorStartedEvent;
+	// null until the first generation is done
+	private final GenerationDoneEvent generationDoneEvent;
+	// null until the first generation is evaluated
+	private final EvaluationStatistics evaluationStatistics;
+	// null until the overhead of watching was measured
+	private final GraphicalSimulationOverheadEvent graphicalSimulationOverheadEvent;
+
+	public ViewStatistics() {
+		this(null, null, null, null);
+	}
+
+	private ViewStatistics(SimulatorStartedEvent simulatorStartedEvent, GenerationDoneEvent generationDoneEvent, EvaluationStatistics evaluationStatistics, GraphicalSimulationOverheadEvent graphicalSimulationOverheadEvent) {
+		this.simulatorStartedEvent = simulatorStartedEvent;
+		this.generationDoneEvent = generationDoneEvent;
+		this.evaluationStatistics = evaluationStatistics;
+		this.graphicalSimulationOverheadEvent = graphicalSimulationOverheadEvent;
+	}
+
+	public ViewStatistics withSimulatorStarted(SimulatorStartedEvent simulatorStartedEvent) {
+		return new ViewStatistics(simulatorStartedEvent, generationDoneEvent, evaluationStatistics, graphicalSimulationOverheadEvent);
+	}
+
+	public ViewStatistics withGenerationDone(GenerationDoneEvent generationDoneEvent) {
+		return new ViewStatistics(simulatorStartedEvent, generationDoneEvent, evaluationStatistics, graphicalSimulationOverheadEvent);
+	}
+
+	public ViewStatistics withGenerationEvaluated(EvaluationStatistics evaluationStatistics) {
+		return new ViewStatistics(simulatorStartedEvent, generationDoneEvent, evaluationStatistics, graphicalSimulationOverheadEvent);
+	}
+
+	public ViewStatistics withGraphicalSimulationOverhead(GraphicalSimulationOverheadEvent graphicalSimulationOverheadEvent) {
+		return new ViewStatistics(simulatorStartedEvent, generationDoneEvent, evaluationStatistics, graphicalSimulationOverheadEvent);
+	}
+
+	public SimulatorStartedEvent getSimulatorStartedEvent() {
+		return simulatorStartedEvent;
+	}
+
+	public GenerationDoneEvent getGenerationDoneEvent() {
+		return generationDoneEvent;
+	}
+
+	public EvaluationStatistics getEvaluationStatistics() {
+		return evaluationStatistics;
+	}
+
+	public GraphicalSimulationOverheadEvent getGraphicalSimulationOverheadEvent() {
+		return graphicalSimulationOverheadEvent;
+	}
+}
@@ -0,0 +1,44 @@
+package com.weisbrja;
+
+import com.weisbrja.engine.BatchSimulationEngine;
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.engine.VectorSimulationEngine;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.GenomeFixtures;
+import com.weisbrja.simulation.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// also run by the testWithoutVectorModule task, where the jvm is started without the incubator module
+public class AppContextTest {
+
+	@Test
+	public void vectorEngineFallsBackToTheBatchEngineWithoutTheModule() throws IOException {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.load(new String[]{"--seed", "42", "--engine", "vector", "--fitness-cache-size", "0"}));
+		SimulationEngine simulationEngine = appContext.createSimulationEngine();
+		assertEquals(VectorSimulationEngine.isSupported() ? VectorSimulationEngine.class : BatchSimulationEngine.class, simulationEngine.getClass());
+
+		// whichever engine was chosen computes the fitness of the batch engine
+		Genome[] genomes = GenomeFixtures.createGenomes(appContext, 50);
+		double[] fitnesses = simulate(appContext, genomes, simulationEngine);
+		double[] expectedFitnesses = simulate(appContext, genomes, new BatchSimulationEngine(appContext.getPhysicsParameters()));
+		for (int i = 0; i < genomes.length; i++)
+			assertEquals(Double.doubleToRawLongBits(expectedFitnesses[i]), Double.doubleToRawLongBits(fitnesses[i]), "fitness of creature " + i);
+	}
+
+	private double[] simulate(AppContext appContext, Genome[] genomes, SimulationEngine simulationEngine) {
+		Simulator[] simulators = new Simulator[genomes.length];
+		for (int i = 0; i < genomes.length; i++)
+			simulators[i] = new Simulator(appContext, genomes[i]);
+		simulationEngine.simulate(simulators, 0, simulators.length, appContext.getConfig().getSimulationCycleCount());
+
+		double[] fitnesses = new double[simulators.length];
+		for (int i = 0; i < simulators.length; i++)
+			fitnesses[i] = simulators[i].getFitness();
+		return fitnesses;
+	}
+}
@@ -0,0 +1,53 @@
+package com.weisbrja;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SimulationConfigTest {
+
+	@Test
+	public void fingerprintIgnoresKeysThatDoNotChangeTheResults() {
+		SimulationConfig config = SimulationConfig.getDefault();
+		String fingerprint = config.getFingerprint();
+
+		assertEquals(fingerprint, config.with("threads", "3").getFingerprint());
+		assertEquals(fingerprint, config.with("generations", "7").getFingerprint());
+		assertEquals(fingerprint, config.with("workers", "localhost:7100").getFingerprint());
+		assertEquals(fingerprint, config.with("worker-batch-size", "10").getFingerprint());
+		assertEquals(fingerprint, config.with("watch-sampling", "random").getFingerprint());
+		assertEquals(fingerprint, config.with("save-data", "true").getFingerprint());
+		assertEquals(fingerprint, config.with("engine", "object").getFingerprint());
+
+		assertNotEquals(fingerprint, config.with("seed", "1").getFingerprint());
+		assertNotEquals(fingerprint, config.with("population-size", "100").getFingerprint());
+		assertNotEquals(fingerprint, config.with("gravity-y", "3").getFingerprint());
+		assertNotEquals(fingerprint, config.with("pruning", "true").getFingerprint());
+	}
+
+	@Test
+	public void reportedPercentilesMustBeBetweenZeroAndOne() {
+		SimulationConfig config = SimulationConfig.getDefault();
+		assertEquals(3, config.with("reported-percentiles", "0, 0.5, 1").getReportedPercentiles().length);
+		assertThrows(IllegalArgumentException.class, () -> config.with("reported-percentiles", "0.1, 90"));
+		assertThrows(IllegalArgumentException.class, () -> config.with("reported-percentiles", "-0.1"));
+		assertThrows(IllegalArgumentException.class, () -> config.with("reported-percentiles", "NaN"));
+	}
+
+	@Test
+	public void engineMustBeKnownAndSupportPruning() {
+		SimulationConfig config = SimulationConfig.getDefault();
+		assertEquals("vector", config.with("engine", "vector").getEngine());
+		assertThrows(IllegalArgumentException.class, () -> config.with("engine", "gpu"));
+		assertThrows(IllegalArgumentException.class, () -> config.with("pruning", "true").with("engine", "array"));
+	}
+
+	@Test
+	public void equalityCoversEveryKey() {
+		SimulationConfig config = SimulationConfig.getDefault();
+		assertEquals(config, SimulationConfig.getDefault());
+		assertNotEquals(config, config.with("threads", "3"));
+	}
+}
@@ -0,0 +1,122 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.population.AliasParentSampler;
+import com.weisbrja.population.ForkJoinGenerationScheduler;
+import com.weisbrja.population.GenerationFailedEvent;
+import com.weisbrja.population.Population;
+import com.weisbrja.simulation.GenerationDoneEvent;
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.GenomeFixtures;
+import com.weisbrja.simulation.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachingSimulationEngineTest {
+
+	private static final int generationCount = 8;
+	private static final int creatureCount = 200;
+	private static final int cycleCount = 600;
+
+	@Test
+	public void cachedFitnessFollowsThePruningThreshold() throws IOException {
+		String[] arguments = {"--seed", "5", "--pruning", "true", "--pruning-interval", "100", "--pruning-max-speed", "0.05"};
+		AppContext uncachedAppContext = new AppContext(new EventBus(), SimulationConfig.load(arguments));
+		AppContext cachedAppContext = new AppContext(new EventBus(), SimulationConfig.load(arguments));
+		Pruning uncachedPruning = uncachedAppContext.getPruning();
+		Pruning cachedPruning = cachedAppContext.getPruning();
+		SimulationEngine uncachedEngine = new BatchSimulationEngine(uncachedAppContext.getPhysicsParameters(), uncachedPruning);
+		CachingSimulationEngine cachedEngine = new CachingSimulationEngine(new BatchSimulationEngine(cachedAppContext.getPhysicsParameters(), cachedPruning), 4096, cachedPruning);
+		Genome[] genomes = GenomeFixtures.createGenomes(uncachedAppContext, creatureCount);
+
+		// the same genomes come back while the threshold rises and falls again, like the kept best creature and its copies do across generations
+		double[] fitnesses = simulate(uncachedAppContext, genomes, uncachedEngine);
+		Arrays.sort(fitnesses);
+		double[] thresholds = {Double.NEGATIVE_INFINITY, fitnesses[creatureCount * 9 / 10], fitnesses[creatureCount * 9 / 10], fitnesses[creatureCount / 2], Double.NEGATIVE_INFINITY};
+		for (double threshold : thresholds) {
+			uncachedPruning.setThreshold(threshold);
+			cachedPruning.setThreshold(threshold);
+			double[] expectedFitnesses = simulate(uncachedAppContext, genomes, uncachedEngine);
+			double[] cachedFitnesses = simulate(cachedAppContext, genomes, cachedEngine);
+			for (int i = 0; i < creatureCount; i++)
+				assertEquals(Double.doubleToRawLongBits(expectedFitnesses[i]), Double.doubleToRawLongBits(cachedFitnesses[i]), "fitness of creature " + i + " at threshold " + threshold);
+			assertEquals(uncachedPruning.getPrunedCreatureCount(), cachedPruning.getPrunedCreatureCount(), "pruned creatures at threshold " + threshold);
+		}
+		assertTrue(uncachedPruning.getPrunedCreatureCount() > 0L);
+		assertTrue(cachedEngine.getHitCount() > 0L);
+	}
+
+	@Test
+	public void cacheDoesNotChangeAPrunedEvolution() throws IOException, InterruptedException {
+		String[] arguments = {"--seed", "3", "--population-size", "300", "--cycles", "600", "--pruning", "true", "--pruning-interval", "100", "--pruning-max-speed", "0.5"};
+		Run uncachedRun = new Run(SimulationConfig.load(arguments).with("fitness-cache-size", "0"));
+		Run cachedRun = new Run(SimulationConfig.load(arguments).with("fitness-cache-size", "4096"));
+
+		// the cache has to be used and the pruning has to cut off creatures, otherwise the comparison says nothing
+		CachingSimulationEngine fitnessCache = (CachingSimulationEngine) cachedRun.simulationEngine;
+		assertTrue(fitnessCache.getHitCount() > 0L);
+		assertTrue(uncachedRun.appContext.getPruning().getPrunedCreatureCount() > 0L);
+
+		for (int generation = 0; generation < generationCount; generation++)
+			for (int i = 0; i < uncachedRun.generationFitnesses.get(generation).length; i++)
+				assertEquals(Double.doubleToRawLongBits(uncachedRun.generationFitnesses.get(generation)[i]), Double.doubleToRawLongBits(cachedRun.generationFitnesses.get(generation)[i]), "fitness of creature " + i + " in generation " + generation);
+		assertEquals(uncachedRun.appContext.getPruning().getPrunedCreatureCount(), cachedRun.appContext.getPruning().getPrunedCreatureCount());
+	}
+
+	private double[] simulate(AppContext appContext, Genome[] genomes, SimulationEngine simulationEngine) {
+		Simulator[] simulators = new Simulator[genomes.length];
+		for (int i = 0; i < genomes.length; i++)
+			simulators[i] = new Simulator(appContext, genomes[i]);
+		simulationEngine.simulate(simulators, 0, simulators.length, cycleCount);
+
+		double[] fitnesses = new double[simulators.length];
+		for (int i = 0; i < simulators.length; i++)
+			fitnesses[i] = simulators[i].getFitness();
+		return fitnesses;
+	}
+
+	private static class Run {
+
+		private final AppContext appContext;
+		private final SimulationEngine simulationEngine;
+		// the fitness of every creature of every generation, indexed like the creatures
+		private final List<double[]> generationFitnesses;
+
+		private Run(SimulationConfig config) throws InterruptedException {
+			EventBus eventBus = new EventBus();
+			appContext = new AppContext(eventBus, config);
+			simulationEngine = appContext.createSimulationEngine();
+			generationFitnesses = new ArrayList<>();
+			ForkJoinGenerationScheduler generationScheduler = new ForkJoinGenerationScheduler(2);
+			Population population = new Population(appContext, null, null, null, simulationEngine, generationScheduler, new AliasParentSampler());
+
+			// the listener runs before the next generation is bred, so the fitness values still belong to the finished generation
+			CountDownLatch doneLatch = new CountDownLatch(1);
+			eventBus.listenFor(GenerationDoneEvent.class, event -> {
+				generationFitnesses.add(population.getFitnesses());
+				if (event.getGenerationCount() >= generationCount) {
+					population.stopSimulating();
+					doneLatch.countDown();
+				}
+			});
+			eventBus.listenFor(GenerationFailedEvent.class, event -> doneLatch.countDown());
+
+			population.initialize(config.getPopulationSize());
+			population.startSimulating();
+			assertTrue(doneLatch.await(120L, TimeUnit.SECONDS));
+			generationScheduler.close();
+			assertEquals(generationCount, generationFitnesses.size());
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.weisbrja.engine;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.GenomeFixtures;
+import com.weisbrja.simulation.PhysicsParameters;
+import com.weisbrja.simulation.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// every engine has to compute exactly the fitness of the object physics, otherwise the choice of engine would change the evolution
+public class EngineEquivalenceTest {
+
+	private static final int creatureCount = 300;
+	private static final int cycleCount = 1500;
+
+	@Test
+	public void enginesAreBitIdenticalWhenStoppingOnGround() throws IOException {
+		assertBitIdentical(true);
+	}
+
+	@Test
+	public void enginesAreBitIdenticalWithoutStoppingOnGround() throws IOException {
+		assertBitIdentical(false);
+	}
+
+	private void assertBitIdentical(boolean stopCreaturesWhenOnGround) throws IOException {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.load(new String[]{"--seed", "42", "--stop-on-ground", String.valueOf(stopCreaturesWhenOnGround)}));
+		Genome[] genomes = GenomeFixtures.createGenomes(appContext, creatureCount);
+		PhysicsParameters physicsParameters = appContext.getPhysicsParameters();
+
+		// the object physics keeps the grounded circle count and the position sum cached during the updates
+		SimulationEngine objectEngine = new ObjectSimulationEngine(physicsParameters);
+		double[] expectedFitnesses = simulate(appContext, genomes, objectEngine);
+
+		SimulationEngine[] simulationEngines = {
+				new ArraySimulationEngine(physicsParameters),
+				new BatchSimulationEngine(physicsParameters),
+				new VectorSimulationEngine(physicsParameters, null)
+		};
+		for (SimulationEngine simulationEngine : simulationEngines) {
+			String engineName = simulationEngine.getClass().getSimpleName();
+			double[] fitnesses = simulate(appContext, genomes, simulationEngine);
+			for (int i = 0; i < genomes.length; i++)
+				assertEquals(Double.doubleToRawLongBits(expectedFitnesses[i]), Double.doubleToRawLongBits(fitnesses[i]), engineName + " fitness of creature " + i);
+			assertEquals(objectEngine.getCreatureStepCount(), simulationEngine.getCreatureStepCount(), engineName + " step count");
+		}
+	}
+
+	private double[] simulate(AppContext appContext, Genome[] genomes, SimulationEngine simulationEngine) {
+		Simulator[] simulators = new Simulator[genomes.length];
+		for (int i = 0; i < genomes.length; i++)
+			simulators[i] = new Simulator(appContext, genomes[i]);
+
+		// simulate in uneven chunks, like the scheduler hands them out
+		for (int from = 0, chunkSize = 1; from < simulators.length; from += chunkSize, chunkSize = chunkSize * 2 + 1)
+			simulationEngine.simulate(simulators, from, Math.min(from + chunkSize, simulators.length), cycleCount);
+
+		double[] fitnesses = new double[simulators.length];
+		for (int i = 0; i < simulators.length; i++)
+			fitnesses[i] = simulators[i].getFitness();
+		return fitnesses;
+	}
+}
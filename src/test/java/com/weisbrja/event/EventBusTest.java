@@ -0,0 +1,129 @@
+package com.weisbrja.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventBusTest {
+
+	@Test
+	public void asyncListenerHandlesTheEventsInOrder() {
+		EventBus eventBus = new EventBus();
+		ManualExecutor executor = new ManualExecutor();
+		List<Integer> handledValues = new ArrayList<>();
+		eventBus.listenForAsync(ValueEvent.class, event -> handledValues.add(event.value), executor, 8);
+
+		for (int i = 0; i < 5; i++)
+			eventBus.emit(new ValueEvent(i));
+		// the queue is drained by a single task
+		assertEquals(1, executor.tasks.size());
+		assertTrue(handledValues.isEmpty());
+		executor.runAll();
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), handledValues);
+
+		List<DispatchStatistics> dispatchStatistics = eventBus.getDispatchStatistics();
+		assertEquals(1, dispatchStatistics.size());
+		assertEquals(ValueEvent.class, dispatchStatistics.get(0).getEventClass());
+		assertEquals(5L, dispatchStatistics.get(0).getDeliveredEventCount());
+		assertEquals(0L, dispatchStatistics.get(0).getCoalescedEventCount());
+		assertEquals(0, dispatchStatistics.get(0).getQueueDepth());
+		assertEquals(5, dispatchStatistics.get(0).getMaxQueueDepth());
+	}
+
+	@Test
+	public void latestListenerOnlyHandlesTheNewestEvent() {
+		EventBus eventBus = new EventBus();
+		ManualExecutor executor = new ManualExecutor();
+		List<Integer> handledValues = new ArrayList<>();
+		AsyncEventListener<ValueEvent> asyncEventListener = eventBus.listenForLatest(ValueEvent.class, event -> handledValues.add(event.value), executor);
+
+		for (int i = 0; i < 5; i++)
+			eventBus.emit(new ValueEvent(i));
+		executor.runAll();
+		assertEquals(Arrays.asList(4), handledValues);
+
+		DispatchStatistics dispatchStatistics = asyncEventListener.getDispatchStatistics();
+		assertTrue(dispatchStatistics.getCoalescing());
+		assertEquals(1L, dispatchStatistics.getDeliveredEventCount());
+		assertEquals(4L, dispatchStatistics.getCoalescedEventCount());
+		assertEquals(1, dispatchStatistics.getMaxQueueDepth());
+	}
+
+	@Test
+	public void failingListenerDoesNotStopTheDelivery() {
+		EventBus eventBus = new EventBus();
+		ManualExecutor executor = new ManualExecutor();
+		List<Integer> handledValues = new ArrayList<>();
+		eventBus.listenForAsync(ValueEvent.class, event -> {
+			if (event.value == 0)
+				throw new IllegalStateException("broken listener");
+			handledValues.add(event.value);
+		}, executor, 8);
+
+		eventBus.emit(new ValueEvent(0));
+		eventBus.emit(new ValueEvent(1));
+		assertThrows(IllegalStateException.class, () -> executor.tasks.remove().run());
+		// the event queued behind the failing one is handed over again
+		executor.runAll();
+		assertEquals(Arrays.asList(1), handledValues);
+
+		eventBus.emit(new ValueEvent(2));
+		executor.runAll();
+		assertEquals(Arrays.asList(1, 2), handledValues);
+	}
+
+	@Test
+	public void emittingIntoTheOwnFullQueueThrows() {
+		EventBus eventBus = new EventBus();
+		ManualExecutor executor = new ManualExecutor();
+		List<Integer> handledValues = new ArrayList<>();
+		List<Throwable> failures = new ArrayList<>();
+		eventBus.listenForAsync(ValueEvent.class, event -> {
+			handledValues.add(event.value);
+			if (event.value == 0) {
+				// the first event fits into the queue, the second one would wait for the thread that emits it
+				eventBus.emit(new ValueEvent(1));
+				failures.add(assertThrows(IllegalStateException.class, () -> eventBus.emit(new ValueEvent(2))));
+			}
+		}, executor, 1);
+
+		eventBus.emit(new ValueEvent(0));
+		executor.runAll();
+		assertEquals(1, failures.size());
+		assertEquals(Arrays.asList(0, 1), handledValues);
+	}
+
+	private static class ValueEvent implements Event {
+
+		private final int value;
+
+		private ValueEvent(int value) {
+			this.value = value;
+		}
+	}
+
+	// runs the tasks on the test thread only when asked to, so that the queues can be filled first
+	private static class ManualExecutor implements Executor {
+
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		@Override
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		private void runAll() {
+			while (!tasks.isEmpty())
+				tasks.remove().run();
+		}
+	}
+}
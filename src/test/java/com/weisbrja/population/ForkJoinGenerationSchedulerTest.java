@@ -0,0 +1,83 @@
+package com.weisbrja.population;
+
+import com.weisbrja.engine.SimulationEngine;
+import com.weisbrja.simulation.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ForkJoinGenerationSchedulerTest {
+
+	@Test
+	public void everyChunkIsPreparedBeforeItIsSimulated() throws InterruptedException, ExecutionException, TimeoutException {
+		int simulatorCount = 1000;
+		AtomicIntegerArray preparedCounts = new AtomicIntegerArray(simulatorCount);
+		AtomicIntegerArray simulatedCounts = new AtomicIntegerArray(simulatorCount);
+		Simulator[] simulators = new Simulator[simulatorCount];
+		SimulationEngine simulationEngine = new SimulationEngine() {
+			@Override
+			public void simulate(Simulator simulator, int cycleCount) {
+			}
+
+			@Override
+			public void simulate(Simulator[] simulators, int from, int to, int cycleCount) {
+				for (int i = from; i < to; i++) {
+					assertEquals(1, preparedCounts.get(i));
+					simulatedCounts.incrementAndGet(i);
+				}
+			}
+
+			@Override
+			public long getCreatureStepCount() {
+				return 0L;
+			}
+		};
+
+		CompletableFuture<EvaluationStatistics> done = new CompletableFuture<>();
+		new ForkJoinGenerationScheduler(2).evaluate(simulators, 0, 10, simulationEngine, (chunkSimulators, from, to) -> {
+			for (int i = from; i < to; i++)
+				preparedCounts.incrementAndGet(i);
+		}, done::complete);
+		EvaluationStatistics evaluationStatistics = done.get(10L, TimeUnit.SECONDS);
+
+		assertNull(evaluationStatistics.getFailure());
+		for (int i = 0; i < simulatorCount; i++)
+			assertEquals(1, simulatedCounts.get(i));
+	}
+
+	@Test
+	public void failingChunkFailsTheGeneration() throws InterruptedException, ExecutionException, TimeoutException {
+		IllegalStateException exception = new IllegalStateException("broken engine");
+		SimulationEngine simulationEngine = new SimulationEngine() {
+			@Override
+			public void simulate(Simulator simulator, int cycleCount) {
+				throw exception;
+			}
+
+			@Override
+			public long getCreatureStepCount() {
+				return 0L;
+			}
+		};
+
+		// the listener has to be called even though no simulator was simulated
+		CompletableFuture<EvaluationStatistics> done = new CompletableFuture<>();
+		new ForkJoinGenerationScheduler(2).evaluate(new Simulator[100], 0, 10, simulationEngine, done::complete);
+		EvaluationStatistics evaluationStatistics = done.get(10L, TimeUnit.SECONDS);
+
+		// the fork join pool may wrap an exception thrown on another worker
+		Throwable failure = evaluationStatistics.getFailure();
+		assertNotNull(failure);
+		assertTrue(failure == exception || failure.getCause() == exception);
+		assertEquals(100, evaluationStatistics.getSimulatorCount());
+	}
+}
@@ -0,0 +1,40 @@
+package com.weisbrja.population;
+
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.event.EventBus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IslandModelTest {
+
+	@Test
+	public void islandGoesOnUntilTheMigrantsOfAStoppedIslandRunOut() throws InterruptedException, IOException {
+		SimulationConfig config = SimulationConfig.load(new String[]{"--seed", "42", "--islands", "2", "--migration-interval", "1", "--migrants", "2", "--population-size", "40", "--cycles", "100", "--threads", "2"});
+		EventBus eventBus = new EventBus();
+		IslandModel islandModel = new IslandModel(eventBus, config);
+
+		// the first island stops early, the second one only gets its migrants up to there
+		CountDownLatch lastMigrationLatch = new CountDownLatch(1);
+		eventBus.listenFor(IslandGenerationDoneEvent.class, event -> {
+			int generationCount = event.getGenerationDoneEvent().getGenerationCount();
+			if (event.getIsland() == 0 && generationCount == 2)
+				islandModel.stopSimulating(0);
+			if (event.getIsland() == 1 && generationCount == 4)
+				lastMigrationLatch.countDown();
+		});
+
+		islandModel.initialize();
+		islandModel.startSimulating();
+		try {
+			// the fourth generation of the second island waits for migrants the first island never sends
+			assertTrue(lastMigrationLatch.await(60, TimeUnit.SECONDS));
+		} finally {
+			islandModel.stopSimulating();
+		}
+	}
+}
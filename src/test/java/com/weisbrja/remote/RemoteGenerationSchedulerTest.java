@@ -0,0 +1,201 @@
+package com.weisbrja.remote;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.engine.BatchSimulationEngine;
+import com.weisbrja.engine.Pruning;
+import com.weisbrja.event.EventBus;
+import com.weisbrja.population.EvaluationStatistics;
+import com.weisbrja.simulation.Genome;
+import com.weisbrja.simulation.GenomeFixtures;
+import com.weisbrja.simulation.Simulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RemoteGenerationSchedulerTest {
+
+	private static final int workerCount = 3;
+	private static final int simulatorCount = 200;
+	private static final int cycleCount = 600;
+
+	private final List<SimulationWorker> simulationWorkers = new ArrayList<>();
+	private final List<InetSocketAddress> workerAddresses = new ArrayList<>();
+
+	@BeforeEach
+	public void startWorkers() throws IOException {
+		for (int i = 0; i < workerCount; i++)
+			workerAddresses.add(startWorker(new SimulationWorker(0, 2)));
+	}
+
+	@AfterEach
+	public void closeWorkers() throws IOException {
+		for (SimulationWorker simulationWorker : simulationWorkers)
+			simulationWorker.close();
+	}
+
+	@Test
+	public void workersComputeTheLocalFitness() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.load(new String[]{"--seed", "7"}));
+		Genome[] genomes = GenomeFixtures.createGenomes(appContext, simulatorCount);
+
+		Simulator[] localSimulators = createSimulators(appContext, genomes);
+		new BatchSimulationEngine(appContext.getPhysicsParameters()).simulate(localSimulators, 0, simulatorCount, cycleCount);
+
+		// small batches, so that every worker gets several of them and they arrive out of order
+		RemoteGenerationScheduler generationScheduler = new RemoteGenerationScheduler(workerAddresses, appContext.getPhysicsParameters(), null, 16, 2);
+		try {
+			Simulator[] remoteSimulators = createSimulators(appContext, genomes);
+			CompletableFuture<EvaluationStatistics> done = new CompletableFuture<>();
+			generationScheduler.evaluate(remoteSimulators, 0, cycleCount, null, done::complete);
+			assertNull(done.get(60L, TimeUnit.SECONDS).getFailure());
+
+			for (int i = 0; i < simulatorCount; i++)
+				assertEquals(Double.doubleToRawLongBits(localSimulators[i].getFitness()), Double.doubleToRawLongBits(remoteSimulators[i].getFitness()), "fitness of creature " + i);
+		} finally {
+			generationScheduler.close();
+		}
+	}
+
+	@Test
+	public void workersPruneLikeTheCoordinator() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		String[] arguments = {"--seed", "7", "--pruning", "true", "--pruning-interval", "100", "--pruning-max-speed", "0.05"};
+		AppContext localAppContext = new AppContext(new EventBus(), SimulationConfig.load(arguments));
+		AppContext remoteAppContext = new AppContext(new EventBus(), SimulationConfig.load(arguments));
+		Genome[] genomes = GenomeFixtures.createGenomes(localAppContext, simulatorCount);
+
+		// cut off the creatures that cannot reach the best tenth of an unpruned run
+		Simulator[] localSimulators = createSimulators(localAppContext, genomes);
+		new BatchSimulationEngine(localAppContext.getPhysicsParameters()).simulate(localSimulators, 0, simulatorCount, cycleCount);
+		double[] fitnesses = new double[simulatorCount];
+		for (int i = 0; i < simulatorCount; i++)
+			fitnesses[i] = localSimulators[i].getFitness();
+		Arrays.sort(fitnesses);
+		localAppContext.getPruning().setThreshold(fitnesses[simulatorCount * 9 / 10]);
+		remoteAppContext.getPruning().setThreshold(fitnesses[simulatorCount * 9 / 10]);
+
+		new BatchSimulationEngine(localAppContext.getPhysicsParameters(), localAppContext.getPruning()).simulate(localSimulators, 0, simulatorCount, cycleCount);
+		assertTrue(localAppContext.getPruning().getPrunedCreatureCount() > 0L);
+
+		RemoteGenerationScheduler generationScheduler = new RemoteGenerationScheduler(workerAddresses, remoteAppContext.getPhysicsParameters(), remoteAppContext.getPruning(), 16, 2);
+		try {
+			Simulator[] remoteSimulators = createSimulators(remoteAppContext, genomes);
+			CompletableFuture<EvaluationStatistics> done = new CompletableFuture<>();
+			generationScheduler.evaluate(remoteSimulators, 0, cycleCount, null, done::complete);
+			assertNull(done.get(60L, TimeUnit.SECONDS).getFailure());
+
+			for (int i = 0; i < simulatorCount; i++)
+				assertEquals(Double.doubleToRawLongBits(localSimulators[i].getFitness()), Double.doubleToRawLongBits(remoteSimulators[i].getFitness()), "fitness of creature " + i);
+			assertEquals(localAppContext.getPruning().getPrunedCreatureCount(), remoteAppContext.getPruning().getPrunedCreatureCount());
+			assertEquals(localAppContext.getPruning().getSavedCreatureStepCount(), remoteAppContext.getPruning().getSavedCreatureStepCount());
+		} finally {
+			generationScheduler.close();
+		}
+	}
+
+	@Test
+	public void failingPreparationFailsTheGeneration() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.load(new String[]{"--seed", "7"}));
+		Genome[] genomes = GenomeFixtures.createGenomes(appContext, simulatorCount);
+
+		RemoteGenerationScheduler generationScheduler = new RemoteGenerationScheduler(workerAddresses, appContext.getPhysicsParameters(), null, 16, 2);
+		try {
+			IllegalStateException exception = new IllegalStateException("broken breeding");
+			CompletableFuture<EvaluationStatistics> failed = new CompletableFuture<>();
+			generationScheduler.evaluate(createSimulators(appContext, genomes), 0, cycleCount, null, (simulators, from, to) -> {
+				if (from >= simulatorCount / 2)
+					throw exception;
+			}, failed::complete);
+			assertEquals(exception, failed.get(60L, TimeUnit.SECONDS).getFailure());
+
+			// the dispatching threads survive the failure and evaluate the next generation
+			CompletableFuture<EvaluationStatistics> done = new CompletableFuture<>();
+			generationScheduler.evaluate(createSimulators(appContext, genomes), 0, cycleCount, null, done::complete);
+			assertNull(done.get(60L, TimeUnit.SECONDS).getFailure());
+		} finally {
+			generationScheduler.close();
+		}
+	}
+
+	@Test
+	public void failingWorkerFailsTheGeneration() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.load(new String[]{"--seed", "7"}));
+		Genome[] genomes = GenomeFixtures.createGenomes(appContext, simulatorCount);
+		InetSocketAddress failingWorkerAddress = startWorker(new SimulationWorker(0, 2, physicsParameters -> new BatchSimulationEngine(physicsParameters) {
+			@Override
+			public void simulate(Simulator[] simulators, int from, int to, int cycleCount, Pruning pruning) {
+				throw new IllegalStateException("broken physics");
+			}
+		}));
+
+		// the worker answers with the failure, so the generation fails long before the response timeout
+		RemoteGenerationScheduler generationScheduler = new RemoteGenerationScheduler(Collections.singletonList(failingWorkerAddress), appContext.getPhysicsParameters(), null, 16, 2);
+		try {
+			CompletableFuture<EvaluationStatistics> failed = new CompletableFuture<>();
+			generationScheduler.evaluate(createSimulators(appContext, genomes), 0, cycleCount, null, failed::complete);
+			Throwable failure = failed.get(10L, TimeUnit.SECONDS).getFailure();
+			assertNotNull(failure);
+			assertTrue(failure.getMessage().contains("broken physics"));
+		} finally {
+			generationScheduler.close();
+		}
+	}
+
+	@Test
+	public void batchThatIsNeverAnsweredFailsTheGeneration() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.load(new String[]{"--seed", "7"}));
+		Genome[] genomes = GenomeFixtures.createGenomes(appContext, simulatorCount);
+		// the worker drops every connection before it answers, so every batch is sent again until the scheduler gives up
+		InetSocketAddress failingWorkerAddress = startWorker(new SimulationWorker(0, 2, physicsParameters -> {
+			throw new IllegalStateException("broken worker");
+		}));
+
+		RemoteGenerationScheduler generationScheduler = new RemoteGenerationScheduler(Collections.singletonList(failingWorkerAddress), appContext.getPhysicsParameters(), null, 16, 2);
+		try {
+			CompletableFuture<EvaluationStatistics> failed = new CompletableFuture<>();
+			generationScheduler.evaluate(createSimulators(appContext, genomes), 0, cycleCount, null, failed::complete);
+			Throwable failure = failed.get(60L, TimeUnit.SECONDS).getFailure();
+			assertNotNull(failure);
+			assertTrue(failure.getMessage().contains("without an answer"));
+		} finally {
+			generationScheduler.close();
+		}
+	}
+
+	private InetSocketAddress startWorker(SimulationWorker simulationWorker) {
+		simulationWorkers.add(simulationWorker);
+		Thread thread = new Thread(() -> {
+			try {
+				simulationWorker.run();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return new InetSocketAddress("localhost", simulationWorker.getPort());
+	}
+
+	private Simulator[] createSimulators(AppContext appContext, Genome[] genomes) {
+		Simulator[] simulators = new Simulator[genomes.length];
+		for (int i = 0; i < genomes.length; i++)
+			simulators[i] = new Simulator(appContext, genomes[i]);
+		return simulators;
+	}
+}
@@ -0,0 +1,43 @@
+package com.weisbrja.simulation;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
+import com.weisbrja.event.EventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CreatureTest {
+
+	@Test
+	public void addRandomCircleWithoutCalculatedConnections() {
+		AppContext appContext = new AppContext(new EventBus(), SimulationConfig.getDefault());
+		SimulationConfig config = appContext.getConfig();
+		RandomNumberGenerator randomNumberGenerator = appContext.getRandomNumberGenerator();
+		Simulator simulator = new Simulator(appContext);
+		simulator.generateRandomCreature(randomNumberGenerator);
+
+		// the connection set of a creature built from a genome is empty, adding circles used to write past the end of its index
+		Creature creature = new Creature(simulator.getGenome());
+		int circleCount = creature.getCircles().size();
+		for (int i = 0; i < 10; i++)
+			creature.addRandomCircle(randomNumberGenerator, config);
+		assertEquals(circleCount + 10, creature.getCircles().size());
+
+		// every muscle connects two different circles of the creature and no two muscles connect the same circles
+		Set<String> connections = new HashSet<>();
+		for (Muscle muscle : creature.getMuscles()) {
+			int circle1 = creature.getCircles().indexOf(muscle.getCircle1());
+			int circle2 = creature.getCircles().indexOf(muscle.getCircle2());
+			assertTrue(circle1 >= 0 && circle2 >= 0);
+			assertNotEquals(circle1, circle2);
+			assertTrue(connections.add(Math.min(circle1, circle2) + " " + Math.max(circle1, circle2)));
+		}
+	}
+}
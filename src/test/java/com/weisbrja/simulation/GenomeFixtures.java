@@ -0,0 +1,28 @@
+package com.weisbrja.simulation;
+
+import com.weisbrja.AppContext;
+import com.weisbrja.RandomNumberGenerator;
+import com.weisbrja.SimulationConfig;
+
+// random genomes of different sizes for the tests, random creatures of the first generation all end on the ground
+public class GenomeFixtures {
+
+	// the i-th genome gets i % 5 extra circles and muscles, added like the structural mutations of a population add them
+	public static Genome[] createGenomes(AppContext appContext, int count) {
+		SimulationConfig config = appContext.getConfig();
+		RandomNumberGenerator randomNumberGenerator = appContext.getRandomNumberGenerator();
+		Genome[] genomes = new Genome[count];
+		for (int i = 0; i < count; i++) {
+			Simulator simulator = new Simulator(appContext);
+			simulator.generateRandomCreature(randomNumberGenerator);
+			Creature creature = new Creature(simulator.getGenome());
+			creature.calculatePossibleConnections();
+			for (int j = 0; j < i % 5; j++) {
+				creature.addRandomCircle(randomNumberGenerator, config);
+				creature.addRandomMuscle(randomNumberGenerator, config);
+			}
+			genomes[i] = new Genome(creature);
+		}
+		return genomes;
+	}
+}